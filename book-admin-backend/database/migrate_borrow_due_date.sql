@@ -0,0 +1,12 @@
+-- 借阅应还日期迁移：在按旧版 schema.sql 建好、还没有 due_date 列的 MySQL 库上执行一次
+-- 逾期扫描只读 due_date < 当前时间 的借阅，应还日期为空的历史借阅永远不会被报告为逾期，所以先补齐再改为 NOT NULL
+USE book_admin;
+
+ALTER TABLE borrows ADD COLUMN due_date TIMESTAMP NULL COMMENT '应还日期' AFTER return_date;
+
+-- 按默认借阅期限 30 天补齐（与 app.borrow.loan-period 保持一致）；借阅日期为空的按创建时间计算
+UPDATE borrows SET due_date = COALESCE(borrow_date, created_at) + INTERVAL 30 DAY WHERE due_date IS NULL;
+
+ALTER TABLE borrows
+    MODIFY due_date TIMESTAMP NOT NULL COMMENT '应还日期',
+    ADD INDEX idx_status_due_date (status, due_date, id);
@@ -11,6 +11,7 @@ CREATE TABLE categories (
     level INT NOT NULL COMMENT '分类级别',
     parent_level VARCHAR(50) COMMENT '父级分类级别',
     parent_id BIGINT COMMENT '父分类ID',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_level (level),
@@ -26,6 +27,7 @@ CREATE TABLE users (
     role ENUM('admin', 'user') NOT NULL DEFAULT 'user' COMMENT '角色',
     status ENUM('on', 'off') NOT NULL DEFAULT 'on' COMMENT '状态',
     sex ENUM('male', 'female') NOT NULL COMMENT '性别',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_name (name),
@@ -43,7 +45,9 @@ CREATE TABLE books (
     book_no VARCHAR(50) UNIQUE COMMENT '图书编号',
     cover VARCHAR(500) COMMENT '封面URL',
     stock INT NOT NULL DEFAULT 0 COMMENT '库存',
+    stock_stripes INT NULL COMMENT '库存分片数，为空表示未分片',
     category_id BIGINT COMMENT '分类ID',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_name (name),
@@ -54,6 +58,16 @@ CREATE TABLE books (
     FOREIGN KEY (category_id) REFERENCES categories(id) ON DELETE SET NULL
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图书表';
 
+-- 图书库存分片表（热门图书分散库存行锁）
+CREATE TABLE book_stock_slots (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    book_id BIGINT NOT NULL COMMENT '图书ID',
+    slot INT NOT NULL COMMENT '分片序号',
+    stock INT NOT NULL DEFAULT 0 COMMENT '分片库存',
+    UNIQUE KEY uk_book_slot (book_id, slot),
+    FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='图书库存分片表';
+
 -- 借阅表
 CREATE TABLE borrows (
     id BIGINT AUTO_INCREMENT PRIMARY KEY,
@@ -62,12 +76,16 @@ CREATE TABLE borrows (
     status ENUM('on', 'off') NOT NULL DEFAULT 'on' COMMENT '借阅状态',
     borrow_date TIMESTAMP DEFAULT CURRENT_TIMESTAMP COMMENT '借阅日期',
     return_date TIMESTAMP NULL COMMENT '归还日期',
+    due_date TIMESTAMP NOT NULL COMMENT '应还日期',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_book (book_id),
     INDEX idx_user (user_id),
     INDEX idx_status (status),
     INDEX idx_borrow_date (borrow_date),
+    INDEX idx_return_date (return_date),
+    INDEX idx_status_due_date (status, due_date, id),
     FOREIGN KEY (book_id) REFERENCES books(id) ON DELETE CASCADE,
     FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅表';
@@ -78,8 +96,10 @@ CREATE TABLE stock_records (
     book_id BIGINT NOT NULL COMMENT '图书ID',
     admin_id BIGINT NOT NULL COMMENT '管理员ID',
     stock_quantity INT NOT NULL COMMENT '入库数量',
-    signature_image TEXT COMMENT '手写签名图片',
+    signature_hash CHAR(64) COMMENT '手写签名图片的 SHA-256（文件存放在 BlobStore）',
+    signature_type VARCHAR(100) COMMENT '签名图片类型',
     remarks TEXT COMMENT '备注',
+    version BIGINT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号',
     created_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP,
     INDEX idx_book (book_id),
@@ -89,6 +109,14 @@ CREATE TABLE stock_records (
     FOREIGN KEY (admin_id) REFERENCES users(id) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='入库记录表';
 
+-- 借阅/归还/入库日汇总表（按天预聚合，时间序列只读此表）
+CREATE TABLE daily_circulation (
+    stat_date DATE PRIMARY KEY COMMENT '日期',
+    borrows BIGINT NOT NULL DEFAULT 0 COMMENT '借出数',
+    returns BIGINT NOT NULL DEFAULT 0 COMMENT '归还数',
+    stocked_in BIGINT NOT NULL DEFAULT 0 COMMENT '入库数量'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COLLATE=utf8mb4_unicode_ci COMMENT='借阅/归还/入库日汇总表';
+
 -- 插入初始分类数据
 INSERT INTO categories (name, level, parent_level) VALUES
 ('文学小说', 1, '0'),
@@ -14,6 +14,7 @@ import com.bookadmin.repository.CategoryRepository;
 import com.bookadmin.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import org.springframework.boot.CommandLineRunner;
+import org.springframework.context.annotation.Profile;
 import org.springframework.stereotype.Component;
 
 import java.time.LocalDateTime;
@@ -21,7 +22,9 @@ import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
 
+// 演示数据；大规模测试数据见 SeedDataGenerator（seed 配置文件）
 @Component
+@Profile("!seed")
 @RequiredArgsConstructor
 public class DataInitializer implements CommandLineRunner {
     
@@ -185,6 +188,8 @@ public class DataInitializer implements CommandLineRunner {
             borrow.setBook(books.get(random.nextInt(books.size())));
             borrow.setStatus(random.nextBoolean() ? BorrowStatus.ON : BorrowStatus.OFF);
             borrow.setBorrowDate(LocalDateTime.now().minusDays(random.nextInt(30)));
+            // 借期两周，约一半未还的借阅已逾期
+            borrow.setDueDate(borrow.getBorrowDate().plusDays(14));
             
             if (borrow.getStatus() == BorrowStatus.OFF) {
                 borrow.setReturnDate(borrow.getBorrowDate().plusDays(random.nextInt(15) + 1));
@@ -0,0 +1,32 @@
+package com.bookadmin.config;
+
+import com.bookadmin.metrics.SqlStatementCounter;
+import com.bookadmin.metrics.SqlStatementMetricsInterceptor;
+import com.bookadmin.metrics.SqlTimingListener;
+import lombok.RequiredArgsConstructor;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+@RequiredArgsConstructor
+public class MetricsConfig implements WebMvcConfigurer {
+
+    private final SqlStatementMetricsInterceptor sqlStatementMetricsInterceptor;
+
+    @Bean
+    public HibernatePropertiesCustomizer sqlStatementCounterCustomizer(SqlStatementCounter sqlStatementCounter) {
+        return properties -> {
+            properties.put(AvailableSettings.STATEMENT_INSPECTOR, sqlStatementCounter);
+            properties.put(AvailableSettings.AUTO_SESSION_EVENTS_LISTENER, SqlTimingListener.class.getName());
+        };
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(sqlStatementMetricsInterceptor).addPathPatterns("/api/**");
+    }
+}
@@ -0,0 +1,279 @@
+package com.bookadmin.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.annotation.Profile;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按规模生成测试数据（seed 配置文件），代替 DataInitializer 的几十条演示数据，用于在真实数据量下压测各接口。
+ * 多线程分批 JDBC 写入，每批使用由随机种子和批号决定的独立随机数，结果与线程调度无关；
+ * 借阅按 Zipf 分布挑选图书，少数热门图书占大部分借阅。
+ * 在 ApplicationStartedEvent 时执行，早于搜索索引、分类树的构建；库中已有分类时跳过。
+ */
+@Slf4j
+@Component
+@Profile("seed")
+public class SeedDataGenerator {
+
+    private static final String[][] CATEGORIES = {
+            {"文学小说", "中国文学", "外国文学", "科幻奇幻", "悬疑推理", "诗歌散文"},
+            {"科技技术", "计算机", "人工智能", "电子通信", "工程制造", "数学"},
+            {"历史传记", "中国历史", "世界历史", "人物传记", "考古"},
+            {"社会科学", "经济管理", "政治法律", "心理学", "教育"},
+            {"艺术生活", "音乐", "美术设计", "摄影", "美食", "旅行"},
+            {"哲学宗教", "中国哲学", "西方哲学", "宗教"},
+            {"少儿读物", "绘本", "童话", "科普"}
+    };
+    private static final String[] SUBJECTS = {"时间", "城市", "河流", "星空", "故乡", "长安", "江湖", "人类",
+            "文明", "宇宙", "海洋", "山川", "帝国", "丝路", "算法", "数据", "机器", "语言", "记忆", "梦境",
+            "光影", "秋天", "少年", "花园", "战争", "和平", "森林", "沙漠", "村庄", "茶", "瓷器", "书法"};
+    private static final String[] MODIFIERS = {"消失的", "遥远的", "沉默的", "最后的", "永恒的", "看不见的",
+            "燃烧的", "温柔的", "孤独的", "古老的", "崭新的", "破碎的"};
+    private static final String[] SUFFIXES = {"简史", "导论", "原理", "笔记", "传", "志", "之歌", "往事",
+            "漫谈", "十讲", "研究", "实践", "故事", "地图"};
+    private static final String[] SURNAMES = {"王", "李", "张", "刘", "陈", "杨", "黄", "赵", "吴", "周",
+            "徐", "孙", "马", "朱", "胡", "郭", "何", "林", "高", "罗", "欧阳", "司马", "诸葛"};
+    private static final String GIVEN_NAME_CHARS = "伟芳娜敏静丽强磊军洋勇艳杰娟涛明超秀霞平刚桂英华玉兰文建国志红梅雪松云飞海波宁远";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final long books;
+    private final long users;
+    private final long borrows;
+    private final int threads;
+    private final int batchSize;
+    private final double popularitySkew;
+    private final double activeRatio;
+    private final long randomSeed;
+    private final Duration loanPeriod;
+
+    public SeedDataGenerator(JdbcTemplate jdbcTemplate,
+                             @Value("${seed.books:100000}") long books,
+                             @Value("${seed.users:10000}") long users,
+                             @Value("${seed.borrows:1000000}") long borrows,
+                             @Value("${seed.threads:0}") int threads,
+                             @Value("${seed.batch-size:1000}") int batchSize,
+                             @Value("${seed.popularity-skew:1.1}") double popularitySkew,
+                             @Value("${seed.active-ratio:0.05}") double activeRatio,
+                             @Value("${seed.random-seed:42}") long randomSeed,
+                             @Value("${app.borrow.loan-period:30d}") Duration loanPeriod) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.books = books;
+        this.users = users;
+        this.borrows = borrows;
+        // 线程数不应超过连接池大小（Hikari 默认 10）
+        this.threads = threads > 0 ? threads : Math.min(Runtime.getRuntime().availableProcessors(), 8);
+        this.batchSize = batchSize;
+        this.popularitySkew = popularitySkew;
+        this.activeRatio = activeRatio;
+        this.randomSeed = randomSeed;
+        this.loanPeriod = loanPeriod;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void generate() throws Exception {
+        Long existing = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM categories", Long.class);
+        if (existing != null && existing > 0) {
+            log.info("Seed skipped: database already contains data");
+            return;
+        }
+
+        long start = System.nanoTime();
+        List<Long> leafCategoryIds = insertCategories();
+        LocalDateTime now = LocalDateTime.now();
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            insert(executor, "users", users,
+                    "INSERT INTO users (id, name, nick_name, role, status, sex, created_at, version) " +
+                    "VALUES (?, ?, ?, ?, ?, ?, ?, 0)",
+                    (random, index) -> new Object[]{
+                            index,
+                            "reader" + index,
+                            personName(random),
+                            index == 1 ? "ADMIN" : "USER",
+                            random.nextInt(50) == 0 ? "OFF" : "ON",
+                            random.nextBoolean() ? "MALE" : "FEMALE",
+                            Timestamp.valueOf(now.minusMinutes(random.nextInt(60 * 24 * 365 * 5)))});
+
+            ZipfSampler popularity = new ZipfSampler(books, popularitySkew);
+            insert(executor, "books", books,
+                    "INSERT INTO books (id, name, author, description, created_at, publish_at, book_no, cover, stock, " +
+                    "category_id, version) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, 0)",
+                    (random, index) -> {
+                        String title = title(random);
+                        return new Object[]{
+                                index,
+                                title,
+                                personName(random),
+                                description(random, title),
+                                Timestamp.valueOf(now.minusMinutes(random.nextInt(60 * 24 * 365 * 5))),
+                                1950 + random.nextInt(now.getYear() - 1949),
+                                String.format("BK%08d", index),
+                                "https://example.com/covers/" + index + ".jpg",
+                                copies(popularity.probability(index), random),
+                                leafCategoryIds.get(random.nextInt(leafCategoryIds.size()))};
+                    });
+
+            insert(executor, "borrows", borrows,
+                    "INSERT INTO borrows (id, book_id, user_id, status, borrow_date, return_date, due_date, version) "
+                            + "VALUES (?, ?, ?, ?, ?, ?, ?, 0)",
+                    (random, index) -> {
+                        LocalDateTime borrowDate = now.minusMinutes(random.nextInt(60 * 24 * 365 * 3));
+                        boolean active = random.nextDouble() < activeRatio;
+                        // 最近借出的不会在未来归还
+                        LocalDateTime returnDate = borrowDate.plusDays(1 + random.nextInt(30));
+                        return new Object[]{
+                                index,
+                                popularity.next(random),
+                                1 + (long) (random.nextDouble() * users),
+                                active ? "ON" : "OFF",
+                                Timestamp.valueOf(borrowDate),
+                                active ? null : Timestamp.valueOf(returnDate.isAfter(now) ? now : returnDate),
+                                Timestamp.valueOf(borrowDate.plus(loanPeriod))};
+                    });
+        } finally {
+            executor.shutdown();
+        }
+        subtractActiveBorrows();
+        restartIdentity("users", users);
+        restartIdentity("books", books);
+        restartIdentity("borrows", borrows);
+        log.info("Seed finished in {} s", String.format("%.1f", (System.nanoTime() - start) / 1e9));
+    }
+
+    // 分类数量很少，单线程插入；返回二级分类ID，图书只挂在二级分类下
+    private List<Long> insertCategories() {
+        List<Long> leafIds = new ArrayList<>();
+        for (String[] group : CATEGORIES) {
+            jdbcTemplate.update("INSERT INTO categories (name, level, parent_level, version) VALUES (?, 1, '0', 0)", group[0]);
+            Long parentId = jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = ?", Long.class, group[0]);
+            for (int i = 1; i < group.length; i++) {
+                jdbcTemplate.update("INSERT INTO categories (name, level, parent_level, parent_id, version) " +
+                        "VALUES (?, 2, '1', ?, 0)", group[i], parentId);
+                leafIds.add(jdbcTemplate.queryForObject("SELECT id FROM categories WHERE name = ?", Long.class, group[i]));
+            }
+        }
+        return leafIds;
+    }
+
+    // 馆藏册数：1~30 册在架，再为预计的未还借阅（Zipf 概率 × 未还借阅数，加三倍标准差余量）留出册数，
+    // 写完借阅后减去实际的未还借阅数得到库存，热门图书不会出现几千条未还借阅对应个位数库存
+    private int copies(double probability, Random random) {
+        double expectedActive = borrows * activeRatio * probability;
+        return 1 + random.nextInt(30) + (int) Math.ceil(expectedActive + 3 * Math.sqrt(expectedActive));
+    }
+
+    private void subtractActiveBorrows() {
+        long start = System.nanoTime();
+        int updated = jdbcTemplate.update("UPDATE books SET stock = GREATEST(stock - " +
+                "(SELECT COUNT(*) FROM borrows w WHERE w.book_id = books.id AND w.status = 'ON'), 0) " +
+                "WHERE id IN (SELECT book_id FROM borrows WHERE status = 'ON')");
+        log.info("Subtracted active borrows from the stock of {} books in {} s", updated,
+                String.format("%.1f", (System.nanoTime() - start) / 1e9));
+    }
+
+    // 显式写入ID后自增起点不一定跟着前进（H2 不会），手动调到最大ID之后；MySQL 的 AUTO_INCREMENT 同样适用
+    private void restartIdentity(String table, long maxId) {
+        if (maxId <= 0) {
+            return;
+        }
+        String sql = isH2()
+                ? "ALTER TABLE " + table + " ALTER COLUMN id RESTART WITH " + (maxId + 1)
+                : "ALTER TABLE " + table + " AUTO_INCREMENT = " + (maxId + 1);
+        jdbcTemplate.execute(sql);
+    }
+
+    private boolean isH2() {
+        return Boolean.TRUE.equals(jdbcTemplate.execute((ConnectionCallback<Boolean>) connection ->
+                connection.getMetaData().getDatabaseProductName().equals("H2")));
+    }
+
+    // 按批切分后并行写入，index 从 1 开始，作为显式写入的ID；
+    // 各批的执行顺序不确定，不能依赖自增ID，否则 ID 为 1 的用户不一定是管理员、ID 为 1 的图书不一定最热门
+    private void insert(ExecutorService executor, String table, long total, String sql, RowGenerator generator)
+            throws Exception {
+        if (total <= 0) {
+            return;
+        }
+        long start = System.nanoTime();
+        AtomicLong inserted = new AtomicLong();
+        long step = Math.max(total / 10, 1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (long from = 1; from <= total; from += batchSize) {
+            long first = from;
+            long last = Math.min(from + batchSize - 1, total);
+            futures.add(executor.submit(() -> {
+                Random random = new Random(randomSeed * 31 + table.hashCode() * 17L + first);
+                List<Object[]> rows = new ArrayList<>((int) (last - first + 1));
+                for (long index = first; index <= last; index++) {
+                    rows.add(generator.row(random, index));
+                }
+                jdbcTemplate.batchUpdate(sql, rows);
+
+                long done = inserted.addAndGet(rows.size());
+                if (done / step > (done - rows.size()) / step) {
+                    log.info("Seeding {}: {}/{} ({})", table, done, total, rate(done, start));
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        log.info("Seeded {}: {} rows in {} s ({})", table, total,
+                String.format("%.1f", (System.nanoTime() - start) / 1e9), rate(total, start));
+    }
+
+    private static String rate(long rows, long start) {
+        double seconds = Math.max((System.nanoTime() - start) / 1e9, 1e-9);
+        return String.format("%.0f rows/s", rows / seconds);
+    }
+
+    private static String title(Random random) {
+        String subject = pick(random, SUBJECTS);
+        return switch (random.nextInt(5)) {
+            case 0 -> pick(random, MODIFIERS) + subject;
+            case 1 -> subject + "的" + pick(random, SUBJECTS);
+            case 2 -> subject + pick(random, SUFFIXES);
+            case 3 -> pick(random, MODIFIERS) + subject + pick(random, SUFFIXES);
+            default -> subject + "与" + pick(random, SUBJECTS);
+        };
+    }
+
+    private static String personName(Random random) {
+        StringBuilder name = new StringBuilder(pick(random, SURNAMES));
+        int length = random.nextInt(3) == 0 ? 1 : 2;
+        for (int i = 0; i < length; i++) {
+            name.append(GIVEN_NAME_CHARS.charAt(random.nextInt(GIVEN_NAME_CHARS.length())));
+        }
+        return name.toString();
+    }
+
+    private static String description(Random random, String title) {
+        return "《" + title + "》讲述了关于" + pick(random, SUBJECTS) + "与" + pick(random, SUBJECTS)
+                + "的故事，" + "作者以" + pick(random, MODIFIERS) + "笔触描绘了" + pick(random, SUBJECTS) + "。";
+    }
+
+    private static String pick(Random random, String[] values) {
+        return values[random.nextInt(values.length)];
+    }
+
+    @FunctionalInterface
+    private interface RowGenerator {
+        Object[] row(Random random, long index);
+    }
+}
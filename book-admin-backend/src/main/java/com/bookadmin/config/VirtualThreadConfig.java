@@ -0,0 +1,44 @@
+package com.bookadmin.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/**
+ * 虚拟线程模式（Java 21 且 spring.threads.virtual.enabled=true）：Tomcat 请求处理和异步任务
+ * （流式导出、@Async）由 Spring Boot 切换到虚拟线程，这里在数据源前加上 ConnectionLimitingDataSource。
+ * app.datasource.max-concurrency 默认在虚拟线程模式下取连接池大小、平台线程模式下不限制，设为正数时两种模式都生效。
+ */
+@Slf4j
+@Configuration
+public class VirtualThreadConfig {
+
+    @Bean
+    public static BeanPostProcessor connectionLimitingDataSourcePostProcessor(Environment environment) {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource dataSource) || bean instanceof ConnectionLimitingDataSource) {
+                    return bean;
+                }
+                boolean virtual = Threading.VIRTUAL.isActive(environment);
+                int poolSize = environment.getProperty("spring.datasource.hikari.maximum-pool-size", Integer.class, 10);
+                int maxConcurrency = environment.getProperty("app.datasource.max-concurrency", Integer.class,
+                        virtual ? poolSize : 0);
+                if (maxConcurrency <= 0) {
+                    return bean;
+                }
+                long timeout = environment.getProperty("spring.datasource.hikari.connection-timeout", Long.class,
+                        30_000L);
+                log.info("{} threads; database access limited to {} concurrent connections",
+                        virtual ? "Virtual" : "Platform", maxConcurrency);
+                return new ConnectionLimitingDataSource(dataSource, maxConcurrency, timeout);
+            }
+        };
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookadmin.config;
+
+import java.math.BigInteger;
+import java.util.Random;
+
+/**
+ * 连续近似的 Zipf 分布：排名 r 的概率约与 r^-s 成正比，按逆变换采样，返回 1..n 的ID。
+ * 排名再乘以与 n 互质的数取模，热门ID分散在整个范围内而不是集中在最小的ID上（排名第一的仍是 1）。
+ * 测试数据生成和压测共用，保证压测的热点与数据中的借阅热度一致。
+ */
+public final class ZipfSampler {
+
+    private final long n;
+    private final double s;
+    private final long multiplier;
+    private final long inverse;
+
+    public ZipfSampler(long n, double s) {
+        this.n = Math.max(n, 1);
+        this.s = s;
+        long m = 2_654_435_761L % this.n;
+        while (this.n > 1 && gcd(Math.max(m, 1), this.n) != 1) {
+            m++;
+        }
+        this.multiplier = Math.max(m, 1);
+        this.inverse = this.n > 1 ? BigInteger.valueOf(multiplier).modInverse(BigInteger.valueOf(this.n)).longValue() : 1;
+    }
+
+    public long next(Random random) {
+        double u = random.nextDouble();
+        double rank;
+        if (Math.abs(s - 1.0) < 1e-9) {
+            rank = Math.exp(u * Math.log(n + 1.0));
+        } else {
+            double a = 1.0 - s;
+            rank = Math.pow(u * (Math.pow(n + 1.0, a) - 1.0) + 1.0, 1.0 / a);
+        }
+        long r = Math.max(Math.min((long) rank, n), 1) - 1;
+        return Math.floorMod(r * multiplier, n) + 1;
+    }
+
+    // next() 返回该ID的概率，即它的排名在 [rank, rank + 1) 区间内的概率
+    public double probability(long id) {
+        long rank = Math.floorMod((id - 1) * inverse, n) + 1;
+        return cdf(rank + 1.0) - cdf(rank);
+    }
+
+    private double cdf(double rank) {
+        if (Math.abs(s - 1.0) < 1e-9) {
+            return Math.log(rank) / Math.log(n + 1.0);
+        }
+        double a = 1.0 - s;
+        return (Math.pow(rank, a) - 1.0) / (Math.pow(n + 1.0, a) - 1.0);
+    }
+
+    private static long gcd(long a, long b) {
+        return b == 0 ? a : gcd(b, a % b);
+    }
+}
@@ -1,13 +1,33 @@
 package com.bookadmin.controller;
 
 import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.BookImportResult;
+import com.bookadmin.dto.CursorPageResult;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.dto.StockRecordDTO;
+import com.bookadmin.enums.ExportFormat;
+import com.bookadmin.enums.ImportFormat;
+import com.bookadmin.enums.StreamFormat;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.export.TableExports;
+import com.bookadmin.service.BookImportService;
 import com.bookadmin.service.BookService;
+import com.bookadmin.service.ChangeCounters;
 import com.bookadmin.service.StockRecordService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/books")
@@ -17,6 +37,9 @@ public class BookController {
     
     private final BookService bookService;
     private final StockRecordService stockRecordService;
+    private final BookImportService bookImportService;
+    private final ObjectMapper objectMapper;
+    private final ChangeCounters changeCounters;
     
     @GetMapping
     public ResponseEntity<PageResult<BookDTO>> getBooks(
@@ -25,15 +48,90 @@ public class BookController {
             @RequestParam(required = false) String category,
             @RequestParam(defaultValue = "1") Integer current,
             @RequestParam(defaultValue = "10") Integer pageSize,
-            @RequestParam(required = false) Boolean all) {
+            @RequestParam(required = false) Boolean all,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
+        
+        // 列表内容未变化时直接返回 304，不查询也不序列化
+        if (request.checkNotModified(changeCounters.etag("books", TrackedTable.BOOKS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
+        PageResult<BookDTO> result = bookService.getBooks(name, author, category, current, pageSize, all,
+                TotalMode.from(total));
+        return ResponseEntity.ok(result);
+    }
+    
+    // 稀疏字段：fields=name,author,category,stock 时只查询并返回这些列（id 总是返回）
+    @GetMapping(params = {"fields", "!after", "!stream"})
+    public ResponseEntity<PageResult<Map<String, Object>>> getBookFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) Boolean all,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
         
-        PageResult<BookDTO> result = bookService.getBooks(name, author, category, current, pageSize, all);
+        if (request.checkNotModified(changeCounters.etag("books", TrackedTable.BOOKS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
+        PageResult<Map<String, Object>> result = bookService.getBookFields(fields, name, author, category,
+                current, pageSize, all, TotalMode.from(total));
         return ResponseEntity.ok(result);
     }
     
+    // 全量流式导出：stream=ndjson|json
+    @GetMapping(params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamBooks(@RequestParam String stream) {
+        return StreamingResponses.json(objectMapper, StreamFormat.from(stream), bookService::streamBooks);
+    }
+    
+    // 游标分页：带 after 参数（第一页传空值）时走这里
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageResult<BookDTO>> getBooksAfter(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String category,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
+        
+        CursorPageResult<BookDTO> result = bookService.getBooksAfter(name, author, category, after, pageSize);
+        return ResponseEntity.ok(result);
+    }
+    
+    // 服务端导出：format=xlsx|csv，与列表接口使用相同的过滤条件
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBooks(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        
+        return TableExports.response("图书列表", ExportFormat.from(format),
+                writer -> bookService.exportBooks(name, author, category, writer));
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id) {
+    public ResponseEntity<BookDTO> getBookById(@PathVariable Long id, WebRequest request) {
+        String categories = changeCounters.etag("c", TrackedTable.CATEGORIES);
         BookDTO book = bookService.getBookById(id);
+        // 图书从近端缓存读取，版本号和库存（分片库存不更新图书行）组成 ETag
+        if (request.checkNotModified(bookEtag(book, categories))) {
+            return null;
+        }
+        return ResponseEntity.ok(book);
+    }
+    
+    // 按图书编号查找（扫码借还）
+    @GetMapping("/by-no/{bookNo}")
+    public ResponseEntity<BookDTO> getBookByBookNo(@PathVariable String bookNo, WebRequest request) {
+        String categories = changeCounters.etag("c", TrackedTable.CATEGORIES);
+        BookDTO book = bookService.getBookByBookNo(bookNo);
+        if (request.checkNotModified(bookEtag(book, categories))) {
+            return null;
+        }
         return ResponseEntity.ok(book);
     }
     
@@ -43,6 +141,29 @@ public class BookController {
         return ResponseEntity.ok(createdBook);
     }
     
+    // 批量导入：multipart 上传 CSV/JSON/XLSX 文件，格式默认按扩展名推断
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<BookImportResult> importBooks(
+            @RequestParam("file") MultipartFile file,
+            @RequestParam(required = false) String format) throws IOException {
+        
+        try (InputStream in = file.getInputStream()) {
+            BookImportResult result = bookImportService.importBooks(in,
+                    ImportFormat.from(format, file.getOriginalFilename()));
+            return ResponseEntity.ok(result);
+        }
+    }
+    
+    // 批量导入：请求体直接是 CSV/JSON，不经过 multipart
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    public ResponseEntity<BookImportResult> importBooks(HttpServletRequest request) throws IOException {
+        ImportFormat format = MediaType.APPLICATION_JSON.isCompatibleWith(MediaType.parseMediaType(request.getContentType()))
+                ? ImportFormat.JSON
+                : ImportFormat.CSV;
+        BookImportResult result = bookImportService.importBooks(request.getInputStream(), format);
+        return ResponseEntity.ok(result);
+    }
+    
     @PostMapping("/{id}/stock")
     public ResponseEntity<StockRecordDTO> addStock(@PathVariable Long id, @RequestBody StockRecordDTO stockRecordDTO) {
         // 设置图书ID
@@ -51,6 +172,13 @@ public class BookController {
         return ResponseEntity.ok(createdStockRecord);
     }
     
+    // 热门图书开启分片库存，stripes 为0时恢复单行库存
+    @PutMapping("/{id}/stock-stripes")
+    public ResponseEntity<BookDTO> stripeStock(@PathVariable Long id, @RequestParam Integer stripes) {
+        BookDTO book = bookService.stripeStock(id, stripes);
+        return ResponseEntity.ok(book);
+    }
+    
     @PutMapping("/{id}")
     public ResponseEntity<BookDTO> updateBook(@PathVariable Long id, @RequestBody BookDTO bookDTO) {
         BookDTO updatedBook = bookService.updateBook(id, bookDTO);
@@ -62,6 +190,10 @@ public class BookController {
         bookService.deleteBook(id);
         return ResponseEntity.ok().build();
     }
+    
+    private static String bookEtag(BookDTO book, String categories) {
+        return "book-" + book.getId() + "-" + book.getVersion() + "-" + book.getStock() + "-" + categories;
+    }
 }
 
 
@@ -1,12 +1,26 @@
 package com.bookadmin.controller;
 
 import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.CursorPageResult;
+import com.bookadmin.dto.OverdueReport;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.enums.BorrowStatus;
+import com.bookadmin.enums.ExportFormat;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.export.TableExports;
 import com.bookadmin.service.BorrowService;
+import com.bookadmin.service.BorrowWriteQueue;
+import com.bookadmin.service.ChangeCounters;
+import com.bookadmin.service.OverdueBorrows;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/api/borrows")
@@ -15,6 +29,9 @@ import org.springframework.web.bind.annotation.*;
 public class BorrowController {
     
     private final BorrowService borrowService;
+    private final BorrowWriteQueue borrowWriteQueue;
+    private final OverdueBorrows overdueBorrows;
+    private final ChangeCounters changeCounters;
     
     @GetMapping
     public ResponseEntity<PageResult<BorrowDTO>> getBorrows(
@@ -23,22 +40,104 @@ public class BorrowController {
             @RequestParam(required = false) String author,
             @RequestParam(required = false) BorrowStatus status,
             @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
+        
+        if (request.checkNotModified(changeCounters.etag("borrows", TrackedTable.BORROWS,
+                TrackedTable.BOOKS, TrackedTable.USERS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
+        PageResult<BorrowDTO> result = borrowService.getBorrows(book, user, author, status, current, pageSize,
+                TotalMode.from(total));
+        return ResponseEntity.ok(result);
+    }
+    
+    // 稀疏字段：fields=book.name,user.name,status 时只查询并返回这些列（id 总是返回）
+    @GetMapping(params = {"fields", "!after"})
+    public ResponseEntity<PageResult<Map<String, Object>>> getBorrowFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String book,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) BorrowStatus status,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
+        
+        if (request.checkNotModified(changeCounters.etag("borrows", TrackedTable.BORROWS,
+                TrackedTable.BOOKS, TrackedTable.USERS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
+        PageResult<Map<String, Object>> result = borrowService.getBorrowFields(fields, book, user, author, status,
+                current, pageSize, TotalMode.from(total));
+        return ResponseEntity.ok(result);
+    }
+    
+    // 游标分页：带 after 参数（第一页传空值）时走这里
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageResult<BorrowDTO>> getBorrowsAfter(
+            @RequestParam(required = false) String book,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) BorrowStatus status,
+            @RequestParam String after,
             @RequestParam(defaultValue = "10") Integer pageSize) {
         
-        PageResult<BorrowDTO> result = borrowService.getBorrows(book, user, author, status, current, pageSize);
+        CursorPageResult<BorrowDTO> result = borrowService.getBorrowsAfter(book, user, author, status, after, pageSize);
         return ResponseEntity.ok(result);
     }
     
+    // 服务端导出：format=xlsx|csv，与列表接口使用相同的过滤条件
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportBorrows(
+            @RequestParam(required = false) String book,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) BorrowStatus status,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        
+        return TableExports.response("借阅列表", ExportFormat.from(format),
+                writer -> borrowService.exportBorrows(book, user, author, status, writer));
+    }
+    
+    // 逾期未还的借阅：读取定时扫描得到的逾期集合，不查询借阅表；userId 只看某个读者，top 为返回的读者排行数
+    @GetMapping("/overdue")
+    public ResponseEntity<OverdueReport> getOverdue(
+            @RequestParam(required = false) Long userId,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(defaultValue = "10") Integer top) {
+        
+        OverdueReport report = overdueBorrows.getReport(userId, current, pageSize, top);
+        return ResponseEntity.ok(report);
+    }
+    
+    // 立即重新扫描，不等下一次定时扫描
+    @PostMapping("/overdue/scan")
+    public ResponseEntity<OverdueReport> scanOverdue(
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(defaultValue = "10") Integer top) {
+        
+        overdueBorrows.scan();
+        return ResponseEntity.ok(overdueBorrows.getReport(null, 1, pageSize, top));
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<BorrowDTO> getBorrowById(@PathVariable Long id) {
+    public ResponseEntity<BorrowDTO> getBorrowById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(changeCounters.etag("borrow-" + id, TrackedTable.BORROWS,
+                TrackedTable.BOOKS, TrackedTable.USERS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
         BorrowDTO borrow = borrowService.getBorrowById(id);
         return ResponseEntity.ok(borrow);
     }
     
+    // 开启组提交时请求线程不等待提交，批次提交后异步返回
     @PostMapping
-    public ResponseEntity<BorrowDTO> createBorrow(@RequestBody BorrowDTO borrowDTO) {
-        BorrowDTO createdBorrow = borrowService.createBorrow(borrowDTO);
-        return ResponseEntity.ok(createdBorrow);
+    public CompletableFuture<ResponseEntity<BorrowDTO>> createBorrow(@RequestBody BorrowDTO borrowDTO) {
+        return borrowWriteQueue.createBorrow(borrowDTO).thenApply(ResponseEntity::ok);
     }
     
     @PostMapping("/{id}")
@@ -48,9 +147,8 @@ public class BorrowController {
     }
     
     @PutMapping("/back/{id}")
-    public ResponseEntity<BorrowDTO> returnBook(@PathVariable Long id) {
-        BorrowDTO returnedBorrow = borrowService.returnBook(id);
-        return ResponseEntity.ok(returnedBorrow);
+    public CompletableFuture<ResponseEntity<BorrowDTO>> returnBook(@PathVariable Long id) {
+        return borrowWriteQueue.returnBook(id).thenApply(ResponseEntity::ok);
     }
     
     @DeleteMapping("/{id}")
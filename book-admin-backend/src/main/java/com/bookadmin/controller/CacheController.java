@@ -0,0 +1,23 @@
+package com.bookadmin.controller;
+
+import com.bookadmin.service.LookupCache;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/caches")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class CacheController {
+    
+    private final LookupCache lookupCache;
+    
+    // 近端缓存的命中、未命中和淘汰次数
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Map<String, Object>>> getStats() {
+        return ResponseEntity.ok(lookupCache.getStats());
+    }
+}
@@ -1,12 +1,14 @@
 package com.bookadmin.controller;
 
 import com.bookadmin.dto.CategoryDTO;
+import com.bookadmin.enums.TrackedTable;
 import com.bookadmin.service.CategoryService;
+import com.bookadmin.service.ChangeCounters;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-
-import java.util.List;
+import org.springframework.web.context.request.WebRequest;
 
 @RestController
 @RequestMapping("/api/categories")
@@ -15,18 +17,28 @@ import java.util.List;
 public class CategoryController {
     
     private final CategoryService categoryService;
+    private final ChangeCounters changeCounters;
     
     @GetMapping
-    public ResponseEntity<List<CategoryDTO>> getCategories(
+    public ResponseEntity<byte[]> getCategories(
             @RequestParam(required = false) Integer level,
-            @RequestParam(required = false) Boolean all) {
+            @RequestParam(required = false) Boolean all,
+            WebRequest request) {
         
-        List<CategoryDTO> categories = categoryService.getCategories(level, all);
-        return ResponseEntity.ok(categories);
+        if (request.checkNotModified(changeCounters.etag("categories", TrackedTable.CATEGORIES))) {
+            return null;
+        }
+        byte[] categories = categoryService.getCategoriesJson(level, all);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(categories);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Long id) {
+    public ResponseEntity<CategoryDTO> getCategoryById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(changeCounters.etag("category-" + id, TrackedTable.CATEGORIES))) {
+            return null;
+        }
         CategoryDTO category = categoryService.getCategoryById(id);
         return ResponseEntity.ok(category);
     }
@@ -0,0 +1,89 @@
+package com.bookadmin.controller;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.PageResult;
+import com.bookadmin.dto.UserDTO;
+import com.bookadmin.enums.BorrowStatus;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.UserStatus;
+import com.bookadmin.service.ReactiveReadService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+// 响应式只读列表：返回 Mono/Flux，请求线程在查询期间释放；Accept: application/x-ndjson 时逐行流式返回全部结果，
+// 按客户端读取速度向数据库请求数据
+@RestController
+@RequestMapping("/api/reactive")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class ReactiveReadController {
+
+    private final ReactiveReadService reactiveReadService;
+
+    @GetMapping("/books")
+    public Mono<PageResult<BookDTO>> getBooks(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String category,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String total) {
+
+        return reactiveReadService.getBooks(name, author, category, current, pageSize, TotalMode.from(total));
+    }
+
+    @GetMapping(value = "/books", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BookDTO> streamBooks(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) String category) {
+
+        return reactiveReadService.streamBooks(name, author, category);
+    }
+
+    @GetMapping("/borrows")
+    public Mono<PageResult<BorrowDTO>> getBorrows(
+            @RequestParam(required = false) String book,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) BorrowStatus status,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String total) {
+
+        return reactiveReadService.getBorrows(book, user, author, status, current, pageSize, TotalMode.from(total));
+    }
+
+    @GetMapping(value = "/borrows", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<BorrowDTO> streamBorrows(
+            @RequestParam(required = false) String book,
+            @RequestParam(required = false) String user,
+            @RequestParam(required = false) String author,
+            @RequestParam(required = false) BorrowStatus status) {
+
+        return reactiveReadService.streamBorrows(book, user, author, status);
+    }
+
+    @GetMapping("/users")
+    public Mono<PageResult<UserDTO>> getUsers(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) UserStatus status,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String total) {
+
+        return reactiveReadService.getUsers(name, status, current, pageSize, TotalMode.from(total));
+    }
+
+    @GetMapping(value = "/users", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<UserDTO> streamUsers(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) UserStatus status) {
+
+        return reactiveReadService.streamUsers(name, status);
+    }
+}
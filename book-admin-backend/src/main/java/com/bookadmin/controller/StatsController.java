@@ -0,0 +1,85 @@
+package com.bookadmin.controller;
+
+import com.bookadmin.dto.CirculationSeriesPoint;
+import com.bookadmin.dto.CirculationStatsDTO;
+import com.bookadmin.dto.RollupBackfillResult;
+import com.bookadmin.dto.StatsSummary;
+import com.bookadmin.enums.SeriesGranularity;
+import com.bookadmin.enums.StatsMetric;
+import com.bookadmin.service.StatsService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/stats")
+@RequiredArgsConstructor
+@CrossOrigin(origins = "*")
+public class StatsController {
+
+    private final StatsService statsService;
+
+    @GetMapping
+    public ResponseEntity<StatsSummary> getSummary() {
+        return ResponseEntity.ok(statsService.getSummary());
+    }
+
+    // sort=borrows（累计借阅）、active（未归还）、stocked（累计入库）
+    @GetMapping("/books")
+    public ResponseEntity<List<CirculationStatsDTO>> getTopBooks(
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        return ResponseEntity.ok(statsService.getTopBooks(StatsMetric.from(sort), limit));
+    }
+
+    @GetMapping("/books/{id}")
+    public ResponseEntity<CirculationStatsDTO> getBookStats(@PathVariable Long id) {
+        return ResponseEntity.ok(statsService.getBookStats(id));
+    }
+
+    @GetMapping("/categories")
+    public ResponseEntity<List<CirculationStatsDTO>> getTopCategories(
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        return ResponseEntity.ok(statsService.getTopCategories(StatsMetric.from(sort), limit));
+    }
+
+    @GetMapping("/users")
+    public ResponseEntity<List<CirculationStatsDTO>> getTopUsers(
+            @RequestParam(required = false) String sort,
+            @RequestParam(defaultValue = "10") Integer limit) {
+        return ResponseEntity.ok(statsService.getTopUsers(StatsMetric.from(sort), limit));
+    }
+
+    @GetMapping("/users/{id}")
+    public ResponseEntity<CirculationStatsDTO> getUserStats(@PathVariable Long id) {
+        return ResponseEntity.ok(statsService.getUserStats(id));
+    }
+
+    // 借出、归还、入库的时间序列，只读日汇总表；granularity=day（默认）或 month
+    @GetMapping("/series")
+    public ResponseEntity<List<CirculationSeriesPoint>> getSeries(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String granularity) {
+        return ResponseEntity.ok(statsService.getSeries(from, to, SeriesGranularity.from(granularity)));
+    }
+
+    // 从借阅、入库表重新汇总日汇总表，不传 from/to 时回填全部历史
+    @PostMapping("/series/backfill")
+    public ResponseEntity<RollupBackfillResult> backfillSeries(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        return ResponseEntity.ok(statsService.backfillSeries(from, to));
+    }
+
+    // 立即从数据库重建计数，返回重建后的汇总和纠正的偏差
+    @PostMapping("/reconcile")
+    public ResponseEntity<StatsSummary> reconcile() {
+        return ResponseEntity.ok(statsService.reconcile());
+    }
+}
@@ -1,11 +1,30 @@
 package com.bookadmin.controller;
 
+import com.bookadmin.dto.CursorPageResult;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.dto.StockRecordDTO;
+import com.bookadmin.dto.StockRecordSignature;
+import com.bookadmin.enums.ExportFormat;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.export.TableExports;
+import com.bookadmin.service.ChangeCounters;
 import com.bookadmin.service.StockRecordService;
+import com.bookadmin.storage.BlobStore;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.multipart.MultipartFile;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/stock-records")
@@ -14,24 +33,112 @@ import org.springframework.web.bind.annotation.*;
 public class StockRecordController {
     
     private final StockRecordService stockRecordService;
+    private final ChangeCounters changeCounters;
+    private final BlobStore blobStore;
     
     @GetMapping
     public ResponseEntity<PageResult<StockRecordDTO>> getStockRecords(
             @RequestParam(required = false) String bookName,
             @RequestParam(required = false) String adminName,
             @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
+        
+        if (request.checkNotModified(changeCounters.etag("stock-records", TrackedTable.STOCK_RECORDS,
+                TrackedTable.BOOKS, TrackedTable.USERS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
+        PageResult<StockRecordDTO> result = stockRecordService.getStockRecords(bookName, adminName, current, pageSize,
+                TotalMode.from(total));
+        return ResponseEntity.ok(result);
+    }
+    
+    // 稀疏字段：fields=book.name,stockQuantity,createdAt 时只查询并返回这些列（id 总是返回）
+    @GetMapping(params = {"fields", "!after"})
+    public ResponseEntity<PageResult<Map<String, Object>>> getStockRecordFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String bookName,
+            @RequestParam(required = false) String adminName,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
+        
+        if (request.checkNotModified(changeCounters.etag("stock-records", TrackedTable.STOCK_RECORDS,
+                TrackedTable.BOOKS, TrackedTable.USERS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
+        PageResult<Map<String, Object>> result = stockRecordService.getStockRecordFields(fields, bookName, adminName,
+                current, pageSize, TotalMode.from(total));
+        return ResponseEntity.ok(result);
+    }
+    
+    // 游标分页：带 after 参数（第一页传空值）时走这里
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageResult<StockRecordDTO>> getStockRecordsAfter(
+            @RequestParam(required = false) String bookName,
+            @RequestParam(required = false) String adminName,
+            @RequestParam String after,
             @RequestParam(defaultValue = "10") Integer pageSize) {
         
-        PageResult<StockRecordDTO> result = stockRecordService.getStockRecords(bookName, adminName, current, pageSize);
+        CursorPageResult<StockRecordDTO> result = stockRecordService.getStockRecordsAfter(bookName, adminName, after, pageSize);
         return ResponseEntity.ok(result);
     }
     
+    // 服务端导出：format=xlsx|csv，与列表接口使用相同的过滤条件
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportStockRecords(
+            @RequestParam(required = false) String bookName,
+            @RequestParam(required = false) String adminName,
+            @RequestParam(defaultValue = "xlsx") String format) {
+        
+        return TableExports.response("入库记录", ExportFormat.from(format),
+                writer -> stockRecordService.exportStockRecords(bookName, adminName, writer));
+    }
+    
     @GetMapping("/{id}")
-    public ResponseEntity<StockRecordDTO> getStockRecordById(@PathVariable Long id) {
+    public ResponseEntity<StockRecordDTO> getStockRecordById(@PathVariable Long id, WebRequest request) {
+        if (request.checkNotModified(changeCounters.etag("stock-record-" + id, TrackedTable.STOCK_RECORDS,
+                TrackedTable.BOOKS, TrackedTable.USERS, TrackedTable.CATEGORIES))) {
+            return null;
+        }
         StockRecordDTO stockRecord = stockRecordService.getStockRecordById(id);
         return ResponseEntity.ok(stockRecord);
     }
     
+    // multipart 创建：record 为入库记录 JSON，signature 为签名图片文件
+    @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ResponseEntity<StockRecordDTO> createStockRecord(
+            @RequestPart("record") StockRecordDTO stockRecordDTO,
+            @RequestPart(value = "signature", required = false) MultipartFile signature) throws IOException {
+        
+        StockRecordDTO createdStockRecord;
+        if (signature == null || signature.isEmpty()) {
+            createdStockRecord = stockRecordService.createStockRecord(stockRecordDTO, null, null);
+        } else {
+            try (InputStream in = signature.getInputStream()) {
+                createdStockRecord = stockRecordService.createStockRecord(stockRecordDTO, in, signature.getContentType());
+            }
+        }
+        return ResponseEntity.ok(createdStockRecord);
+    }
+    
+    // 签名图片按内容哈希寻址，不会变化，允许客户端长期缓存
+    @GetMapping("/{id}/signature")
+    public void getSignature(@PathVariable Long id, WebRequest request, HttpServletResponse response)
+            throws IOException {
+        StockRecordSignature signature = stockRecordService.getSignature(id);
+        response.setHeader(HttpHeaders.CACHE_CONTROL, "public, max-age=31536000, immutable");
+        if (request.checkNotModified(signature.hash())) {
+            return;
+        }
+        response.setContentType(signature.type());
+        response.setContentLengthLong(blobStore.size(signature.hash()));
+        response.setHeader("X-Content-Type-Options", "nosniff");
+        blobStore.transferTo(signature.hash(), Channels.newChannel(response.getOutputStream()));
+    }
+    
     @PostMapping
     public ResponseEntity<StockRecordDTO> createStockRecord(@RequestBody StockRecordDTO stockRecordDTO) {
         StockRecordDTO createdStockRecord = stockRecordService.createStockRecord(stockRecordDTO);
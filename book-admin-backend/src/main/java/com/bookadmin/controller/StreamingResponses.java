@@ -0,0 +1,61 @@
+package com.bookadmin.controller;
+
+import com.bookadmin.enums.StreamFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.function.Consumer;
+
+/**
+ * 逐条写出 DTO 的流式 JSON 响应：stream=ndjson 每行一个对象，stream=json 为分块输出的 JSON 数组。
+ */
+public final class StreamingResponses {
+
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
+    private static final int FLUSH_EVERY = 500;
+
+    private StreamingResponses() {
+    }
+
+    public static <T> ResponseEntity<StreamingResponseBody> json(ObjectMapper objectMapper, StreamFormat format,
+                                                                Consumer<Consumer<T>> source) {
+        boolean ndjson = format == StreamFormat.NDJSON;
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                // 读取中途失败时不自动补上结尾的 ]，客户端拿到的是明显不完整的 JSON，而不是被截断的合法数组
+                generator.disable(JsonGenerator.Feature.AUTO_CLOSE_JSON_CONTENT);
+                generator.setRootValueSeparator(null);
+                if (!ndjson) {
+                    generator.writeStartArray();
+                }
+                int[] written = {0};
+                source.accept(item -> {
+                    try {
+                        generator.writeObject(item);
+                        if (ndjson) {
+                            generator.writeRaw('\n');
+                        }
+                        if (++written[0] % FLUSH_EVERY == 0) {
+                            generator.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (!ndjson) {
+                    generator.writeEndArray();
+                }
+            }
+        };
+        return ResponseEntity.ok()
+                .contentType(ndjson ? APPLICATION_NDJSON : MediaType.APPLICATION_JSON)
+                .body(body);
+    }
+}
@@ -1,13 +1,23 @@
 package com.bookadmin.controller;
 
+import com.bookadmin.dto.CursorPageResult;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.dto.UserDTO;
 import com.bookadmin.entity.User;
+import com.bookadmin.enums.StreamFormat;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
 import com.bookadmin.enums.UserStatus;
+import com.bookadmin.service.ChangeCounters;
 import com.bookadmin.service.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/users")
@@ -16,6 +26,8 @@ import org.springframework.web.bind.annotation.*;
 public class UserController {
     
     private final UserService userService;
+    private final ObjectMapper objectMapper;
+    private final ChangeCounters changeCounters;
     
     @GetMapping
     public ResponseEntity<PageResult<UserDTO>> getUsers(
@@ -23,15 +35,68 @@ public class UserController {
             @RequestParam(required = false) UserStatus status,
             @RequestParam(defaultValue = "1") Integer current,
             @RequestParam(defaultValue = "10") Integer pageSize,
-            @RequestParam(required = false) Boolean all) {
+            @RequestParam(required = false) Boolean all,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
+        
+        if (request.checkNotModified(changeCounters.etag("users", TrackedTable.USERS))) {
+            return null;
+        }
+        PageResult<UserDTO> result = userService.getUsers(name, status, current, pageSize, all,
+                TotalMode.from(total));
+        return ResponseEntity.ok(result);
+    }
+    
+    // 稀疏字段：fields=name,nickName,status 时只查询并返回这些列（id 总是返回）
+    @GetMapping(params = {"fields", "!after", "!stream"})
+    public ResponseEntity<PageResult<Map<String, Object>>> getUserFields(
+            @RequestParam String fields,
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) UserStatus status,
+            @RequestParam(defaultValue = "1") Integer current,
+            @RequestParam(defaultValue = "10") Integer pageSize,
+            @RequestParam(required = false) Boolean all,
+            @RequestParam(required = false) String total,
+            WebRequest request) {
+        
+        if (request.checkNotModified(changeCounters.etag("users", TrackedTable.USERS))) {
+            return null;
+        }
+        PageResult<Map<String, Object>> result = userService.getUserFields(fields, name, status, current, pageSize,
+                all, TotalMode.from(total));
+        return ResponseEntity.ok(result);
+    }
+    
+    // 全量流式导出：stream=ndjson|json
+    @GetMapping(params = "stream")
+    public ResponseEntity<StreamingResponseBody> streamUsers(@RequestParam String stream) {
+        return StreamingResponses.json(objectMapper, StreamFormat.from(stream), userService::streamUsers);
+    }
+    
+    // 游标分页：带 after 参数（第一页传空值）时走这里
+    @GetMapping(params = "after")
+    public ResponseEntity<CursorPageResult<UserDTO>> getUsersAfter(
+            @RequestParam(required = false) String name,
+            @RequestParam(required = false) UserStatus status,
+            @RequestParam String after,
+            @RequestParam(defaultValue = "10") Integer pageSize) {
         
-        PageResult<UserDTO> result = userService.getUsers(name, status, current, pageSize, all);
+        CursorPageResult<UserDTO> result = userService.getUsersAfter(name, status, after, pageSize);
         return ResponseEntity.ok(result);
     }
     
     @GetMapping("/{id}")
-    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id) {
+    public ResponseEntity<UserDTO> getUserById(@PathVariable Long id, WebRequest request) {
         UserDTO user = userService.getUserById(id);
+        if (request.checkNotModified("user-" + user.getId() + "-" + user.getVersion())) {
+            return null;
+        }
+        return ResponseEntity.ok(user);
+    }
+    
+    @GetMapping("/by-name/{name}")
+    public ResponseEntity<UserDTO> getUserByName(@PathVariable String name) {
+        UserDTO user = userService.getUserByName(name);
         return ResponseEntity.ok(user);
     }
     
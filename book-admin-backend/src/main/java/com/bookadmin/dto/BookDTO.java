@@ -19,8 +19,10 @@ public class BookDTO {
     private String bookNo;
     private String cover;
     private Integer stock;
+    private Integer stockStripes;
     private String category;
     private Long categoryId;
+    private Long version;
 }
 
 
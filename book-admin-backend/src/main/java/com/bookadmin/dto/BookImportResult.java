@@ -0,0 +1,28 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookImportResult {
+    private Long total;
+    private Long imported;
+    private Long failed;
+    private Long elapsedMillis;
+    private List<RowError> errors = new ArrayList<>(); // 最多返回前 1000 条
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class RowError {
+        private Long row;
+        private String bookNo;
+        private String message;
+    }
+}
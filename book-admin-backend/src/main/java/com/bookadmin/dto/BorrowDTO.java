@@ -17,6 +17,8 @@ public class BorrowDTO {
     private BorrowStatus status;
     private LocalDateTime borrowDate;
     private LocalDateTime returnDate;
+    private LocalDateTime dueDate;
+    private Long version;
 }
 
 
@@ -16,6 +16,7 @@ public class CategoryDTO {
     private String parentLevel;
     private Long parentId;
     private String parentName;
+    private Long version;
     private List<CategoryDTO> children;
 }
 
@@ -0,0 +1,17 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationSeriesPoint {
+    private LocalDate date; // 按天为当天，按月为当月第一天
+    private Long borrows;
+    private Long returns;
+    private Long stockedIn;
+}
@@ -0,0 +1,16 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CirculationStatsDTO {
+    private Long id; // 图书、分类或读者ID
+    private String name;
+    private Long borrows; // 累计借阅数
+    private Long activeBorrows; // 未归还的借阅数
+    private Long stockedIn; // 累计入库数量，读者为空
+}
@@ -0,0 +1,32 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CursorPageResult<T> {
+    private List<T> data;
+    private Integer pageSize;
+    private Boolean hasNext;
+    private String nextCursor;
+
+    // rows 按 pageSize + 1 条查询，多出的一条只用来判断是否还有下一页
+    public static <E, T> CursorPageResult<T> of(List<E> rows, int pageSize,
+                                                Function<E, PageCursor> cursorOf,
+                                                Function<E, T> mapper) {
+        boolean hasNext = rows.size() > pageSize;
+        List<E> page = hasNext ? rows.subList(0, pageSize) : rows;
+        String nextCursor = hasNext && !page.isEmpty() ? cursorOf.apply(page.get(page.size() - 1)).encode() : null;
+        List<T> data = page.stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        return new CursorPageResult<>(data, pageSize, hasNext, nextCursor);
+    }
+}
@@ -0,0 +1,22 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueBorrowDTO {
+    private Long id;
+    private Long bookId;
+    private String bookName;
+    private String bookNo;
+    private Long userId;
+    private String userName;
+    private String userNickName;
+    private LocalDateTime borrowDate;
+    private LocalDateTime dueDate;
+}
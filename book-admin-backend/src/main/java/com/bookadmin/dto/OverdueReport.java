@@ -0,0 +1,19 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueReport {
+    private LocalDateTime scannedAt; // 最近一次扫描的时间，之后才到期的借阅要等下次扫描
+    private Long total; // 逾期未还的借阅总数
+    private Integer users; // 有逾期借阅的读者数
+    private List<OverdueUserDTO> topUsers; // 逾期数最多的读者
+    private PageResult<OverdueBorrowDTO> borrows;
+}
@@ -0,0 +1,15 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class OverdueUserDTO {
+    private Long userId;
+    private String userName;
+    private String userNickName;
+    private Integer count; // 逾期未还的借阅数
+}
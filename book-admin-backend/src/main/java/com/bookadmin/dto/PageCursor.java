@@ -0,0 +1,66 @@
+package com.bookadmin.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.util.StringUtils;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.Base64;
+
+/**
+ * 游标分页的不透明 after 令牌：排序键 + ID，Base64URL 编码。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PageCursor {
+    private static final String SEPARATOR = "|";
+
+    private String sortKey;
+    private Long id;
+
+    public static PageCursor of(Long id) {
+        return new PageCursor(null, id);
+    }
+
+    public static PageCursor of(LocalDateTime sortKey, Long id) {
+        return new PageCursor(sortKey != null ? sortKey.toString() : null, id);
+    }
+
+    // 空令牌表示第一页，返回 null
+    public static PageCursor decode(String token) {
+        if (!StringUtils.hasText(token)) {
+            return null;
+        }
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            int index = raw.lastIndexOf(SEPARATOR);
+            if (index < 0) {
+                return new PageCursor(null, Long.valueOf(raw));
+            }
+            String sortKey = raw.substring(0, index);
+            return new PageCursor(sortKey.isEmpty() ? null : sortKey, Long.valueOf(raw.substring(index + 1)));
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+
+    public String encode() {
+        String raw = sortKey != null ? sortKey + SEPARATOR + id : String.valueOf(id);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    // 按时间排序的列表使用；没有排序键的令牌（例如图书、用户列表的游标）按第一页处理会让翻页从头开始，直接拒绝
+    public LocalDateTime getSortKeyAsDateTime() {
+        if (sortKey == null) {
+            throw new RuntimeException("Invalid cursor");
+        }
+        try {
+            return LocalDateTime.parse(sortKey);
+        } catch (RuntimeException e) {
+            throw new RuntimeException("Invalid cursor");
+        }
+    }
+}
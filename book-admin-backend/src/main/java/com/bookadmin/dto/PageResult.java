@@ -3,8 +3,11 @@ package com.bookadmin.dto;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.springframework.data.domain.Slice;
 
 import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 @Data
 @NoArgsConstructor
@@ -15,10 +18,27 @@ public class PageResult<T> {
     private Integer current;
     private Integer pageSize;
     private Integer totalPages;
+    private Boolean hasNext;
+
+    public PageResult(List<T> data, Long total, Integer current, Integer pageSize, Integer totalPages) {
+        this(data, total, current, pageSize, totalPages, current < totalPages);
+    }
+
+    // total=none 时 total、totalPages 为空，只给出 hasNext
+    public static <E, T> PageResult<T> of(Slice<E> slice, Long total, Integer current, Integer pageSize,
+                                          Function<E, T> mapper) {
+        List<T> data = slice.getContent().stream()
+                .map(mapper)
+                .collect(Collectors.toList());
+        Integer totalPages = total != null ? (int) ((total + pageSize - 1) / pageSize) : null;
+        return new PageResult<>(data, total, current, pageSize, totalPages, slice.hasNext());
+    }
+
+    // rows 按 pageSize + 1 条查询，多出的一条只用来判断是否有下一页
+    public static <T> PageResult<T> of(List<T> rows, Long total, Integer current, Integer pageSize) {
+        boolean hasNext = rows.size() > pageSize;
+        List<T> data = hasNext ? rows.subList(0, pageSize) : rows;
+        Integer totalPages = total != null ? (int) ((total + pageSize - 1) / pageSize) : null;
+        return new PageResult<>(data, total, current, pageSize, totalPages, hasNext);
+    }
 }
-
-
-
-
-
-
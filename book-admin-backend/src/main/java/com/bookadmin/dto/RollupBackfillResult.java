@@ -0,0 +1,18 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RollupBackfillResult {
+    private LocalDate from;
+    private LocalDate to;
+    private Integer chunks; // 并行回填的日期段数
+    private Integer days; // 有数据的天数
+    private Long elapsedMs;
+}
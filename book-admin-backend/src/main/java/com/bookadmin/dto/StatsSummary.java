@@ -0,0 +1,18 @@
+package com.bookadmin.dto;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class StatsSummary {
+    private Long borrows;
+    private Long activeBorrows;
+    private Long stockedIn;
+    private LocalDateTime reconciledAt; // 最近一次从数据库重建计数的时间
+    private Long lastDrift; // 最近一次重建时纠正的计数偏差（各计数差值的绝对值之和）
+}
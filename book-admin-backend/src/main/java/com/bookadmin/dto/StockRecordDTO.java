@@ -18,6 +18,7 @@ public class StockRecordDTO {
     private String signatureImage;
     private String remarks;
     private LocalDateTime createdAt;
+    private Long version;
 }
 
 
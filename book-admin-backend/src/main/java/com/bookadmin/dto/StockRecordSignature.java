@@ -0,0 +1,5 @@
+package com.bookadmin.dto;
+
+// 入库记录签名在 BlobStore 中的哈希和图片类型
+public record StockRecordSignature(String hash, String type) {
+}
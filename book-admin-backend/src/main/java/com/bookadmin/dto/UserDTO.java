@@ -20,6 +20,7 @@ public class UserDTO {
     private UserStatus status;
     private UserSex sex;
     private LocalDateTime createdAt;
+    private Long version;
 }
 
 
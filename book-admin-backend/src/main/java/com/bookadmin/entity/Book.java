@@ -4,6 +4,7 @@ import jakarta.persistence.*;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import lombok.AllArgsConstructor;
+import org.hibernate.annotations.Formula;
 
 import java.time.LocalDateTime;
 
@@ -40,12 +41,24 @@ public class Book {
     private String cover; // 封面URL
     
     @Column(nullable = false)
-    private Integer stock; // 库存
+    private Integer stock; // 库存，分片模式下为0，实际库存在 book_stock_slots
+    
+    @Column(name = "stock_stripes")
+    private Integer stockStripes; // 库存分片数，为空表示未分片
+    
+    // 对外展示的库存：未分片时就是 stock，分片时为各分片之和
+    @Formula("(CASE WHEN stock_stripes IS NULL THEN stock ELSE " +
+             "(SELECT COALESCE(SUM(s.stock), 0) FROM book_stock_slots s WHERE s.book_id = id) END)")
+    private Integer availableStock;
     
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "category_id")
     private Category category;
     
+    @Version
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号，条件 UPDATE 扣减库存时同样自增
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,28 @@
+package com.bookadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+@Entity
+@Table(name = "book_stock_slots",
+       uniqueConstraints = @UniqueConstraint(name = "uk_book_slot", columnNames = {"book_id", "slot"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BookStockSlot {
+    
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+    
+    @Column(name = "book_id", nullable = false)
+    private Long bookId;
+    
+    @Column(nullable = false)
+    private Integer slot; // 分片序号，从0开始
+    
+    @Column(nullable = false)
+    private Integer stock; // 该分片上的库存
+}
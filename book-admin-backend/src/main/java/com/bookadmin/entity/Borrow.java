@@ -9,7 +9,12 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "borrows")
+@Table(name = "borrows",
+       indexes = {
+               @Index(name = "idx_status_due_date", columnList = "status, due_date, id"),
+               @Index(name = "idx_borrow_date", columnList = "borrow_date"),
+               @Index(name = "idx_return_date", columnList = "return_date")
+       })
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -37,6 +42,13 @@ public class Borrow {
     @Column(name = "return_date")
     private LocalDateTime returnDate;
     
+    @Column(name = "due_date", nullable = false)
+    private LocalDateTime dueDate; // 应还日期
+    
+    @Version
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+    
     @PrePersist
     protected void onCreate() {
         borrowDate = LocalDateTime.now();
@@ -34,5 +34,9 @@ public class Category {
     
     @OneToMany(mappedBy = "parent", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<Category> children = new ArrayList<>();
+    
+    @Version
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
 }
 
@@ -0,0 +1,29 @@
+package com.bookadmin.entity;
+
+import jakarta.persistence.*;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import lombok.AllArgsConstructor;
+
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "daily_circulation")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DailyCirculation {
+    
+    @Id
+    @Column(name = "stat_date")
+    private LocalDate statDate; // 日期
+    
+    @Column(nullable = false)
+    private Long borrows; // 当天借出数
+    
+    @Column(nullable = false)
+    private Long returns; // 当天归还数
+    
+    @Column(name = "stocked_in", nullable = false)
+    private Long stockedIn; // 当天入库数量
+}
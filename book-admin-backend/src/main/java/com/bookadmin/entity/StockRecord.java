@@ -8,7 +8,8 @@ import lombok.AllArgsConstructor;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "stock_records")
+@Table(name = "stock_records",
+       indexes = @Index(name = "idx_created_at", columnList = "created_at"))
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -29,8 +30,11 @@ public class StockRecord {
     @Column(name = "stock_quantity", nullable = false)
     private Integer stockQuantity; // 入库数量
     
-    @Column(name = "signature_image", columnDefinition = "TEXT")
-    private String signatureImage; // 手写签名图片Base64或URL
+    @Column(name = "signature_hash", length = 64)
+    private String signatureHash; // 手写签名图片在 BlobStore 中的 SHA-256
+    
+    @Column(name = "signature_type", length = 100)
+    private String signatureType; // 签名图片的 Content-Type
     
     @Column(name = "remarks", columnDefinition = "TEXT")
     private String remarks; // 备注
@@ -38,6 +42,10 @@ public class StockRecord {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
+    @Version
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
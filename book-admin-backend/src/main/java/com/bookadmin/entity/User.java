@@ -42,6 +42,10 @@ public class User {
     @Column(name = "created_at")
     private LocalDateTime createdAt;
     
+    @Version
+    @Column(nullable = false)
+    private Long version; // 乐观锁版本号
+    
     @PrePersist
     protected void onCreate() {
         createdAt = LocalDateTime.now();
@@ -0,0 +1,25 @@
+package com.bookadmin.enums;
+
+public enum ExportFormat {
+    CSV("csv"),
+    XLSX("xlsx");
+
+    private final String value;
+
+    ExportFormat(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static ExportFormat from(String value) {
+        for (ExportFormat format : values()) {
+            if (format.value.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new RuntimeException("Invalid export format: " + value);
+    }
+}
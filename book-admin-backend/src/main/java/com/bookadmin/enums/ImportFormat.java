@@ -0,0 +1,33 @@
+package com.bookadmin.enums;
+
+public enum ImportFormat {
+    CSV("csv"),
+    JSON("json"),
+    XLSX("xlsx");
+
+    private final String value;
+
+    ImportFormat(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    // 未显式指定格式时按文件扩展名推断
+    public static ImportFormat from(String value, String filename) {
+        String candidate = value;
+        if ((candidate == null || candidate.isEmpty()) && filename != null && filename.lastIndexOf('.') >= 0) {
+            candidate = filename.substring(filename.lastIndexOf('.') + 1);
+        }
+        if (candidate != null) {
+            for (ImportFormat format : values()) {
+                if (format.value.equalsIgnoreCase(candidate)) {
+                    return format;
+                }
+            }
+        }
+        throw new RuntimeException("Invalid import format: " + candidate);
+    }
+}
@@ -0,0 +1,28 @@
+package com.bookadmin.enums;
+
+public enum SeriesGranularity {
+    DAY("day"),
+    MONTH("month");
+
+    private final String value;
+
+    SeriesGranularity(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static SeriesGranularity from(String value) {
+        if (value == null || value.isEmpty()) {
+            return DAY;
+        }
+        for (SeriesGranularity granularity : values()) {
+            if (granularity.value.equalsIgnoreCase(value)) {
+                return granularity;
+            }
+        }
+        throw new RuntimeException("Invalid granularity: " + value);
+    }
+}
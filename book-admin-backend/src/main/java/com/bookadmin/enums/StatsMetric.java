@@ -0,0 +1,29 @@
+package com.bookadmin.enums;
+
+public enum StatsMetric {
+    BORROWS("borrows"),
+    ACTIVE("active"),
+    STOCKED("stocked");
+
+    private final String value;
+
+    StatsMetric(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static StatsMetric from(String value) {
+        if (value == null || value.isEmpty()) {
+            return BORROWS;
+        }
+        for (StatsMetric metric : values()) {
+            if (metric.value.equalsIgnoreCase(value)) {
+                return metric;
+            }
+        }
+        throw new RuntimeException("Invalid stats metric: " + value);
+    }
+}
@@ -0,0 +1,25 @@
+package com.bookadmin.enums;
+
+public enum StreamFormat {
+    NDJSON("ndjson"),
+    JSON("json");
+
+    private final String value;
+
+    StreamFormat(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static StreamFormat from(String value) {
+        for (StreamFormat format : values()) {
+            if (format.value.equalsIgnoreCase(value)) {
+                return format;
+            }
+        }
+        throw new RuntimeException("Invalid stream format: " + value);
+    }
+}
@@ -0,0 +1,29 @@
+package com.bookadmin.enums;
+
+public enum TotalMode {
+    NONE("none"),
+    APPROX("approx"),
+    EXACT("exact");
+
+    private final String value;
+
+    TotalMode(String value) {
+        this.value = value;
+    }
+
+    public String getValue() {
+        return value;
+    }
+
+    public static TotalMode from(String value) {
+        if (value == null || value.isEmpty()) {
+            return EXACT;
+        }
+        for (TotalMode mode : values()) {
+            if (mode.value.equalsIgnoreCase(value)) {
+                return mode;
+            }
+        }
+        throw new RuntimeException("Invalid total mode: " + value);
+    }
+}
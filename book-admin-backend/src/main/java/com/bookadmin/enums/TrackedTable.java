@@ -0,0 +1,10 @@
+package com.bookadmin.enums;
+
+// 记录变更计数的表，用于列表接口的 ETag
+public enum TrackedTable {
+    BOOKS,
+    USERS,
+    CATEGORIES,
+    BORROWS,
+    STOCK_RECORDS
+}
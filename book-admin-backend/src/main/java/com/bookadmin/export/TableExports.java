@@ -0,0 +1,46 @@
+package com.bookadmin.export;
+
+import com.bookadmin.enums.ExportFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.function.Consumer;
+
+public final class TableExports {
+
+    private static final MediaType XLSX = MediaType.parseMediaType(
+            "application/vnd.openxmlformats-officedocument.spreadsheetml.sheet");
+    private static final MediaType CSV = MediaType.parseMediaType("text/csv;charset=UTF-8");
+    private static final DateTimeFormatter FILE_SUFFIX = DateTimeFormatter.ofPattern("yyyyMMdd_HHmmss");
+
+    private TableExports() {
+    }
+
+    // 文件名与前端导出保持一致：{title}_{yyyyMMdd_HHmmss}.xlsx
+    public static ResponseEntity<StreamingResponseBody> response(String title, ExportFormat format,
+                                                                Consumer<TableWriter> source) {
+        StreamingResponseBody body = out -> {
+            try (TableWriter writer = format == ExportFormat.XLSX
+                    ? new XlsxTableWriter(out, title)
+                    : new CsvTableWriter(out)) {
+                // 读取中途失败时异常直接中断响应，不写出收尾内容
+                source.accept(writer);
+                writer.finish();
+            }
+        };
+        String filename = title + "_" + FILE_SUFFIX.format(LocalDateTime.now()) + "." + format.getValue();
+        return ResponseEntity.ok()
+                .contentType(format == ExportFormat.XLSX ? XLSX : CSV)
+                .header(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                        .filename(filename, StandardCharsets.UTF_8)
+                        .build()
+                        .toString())
+                .body(body);
+    }
+}
@@ -0,0 +1,16 @@
+package com.bookadmin.export;
+
+import java.io.Closeable;
+import java.io.IOException;
+
+/**
+ * 逐行写出的表格，第一行为表头。实现只在内存中保留有限的行。
+ * 全部行写完后调用 finish() 输出收尾内容；未调用 finish() 就 close() 时只释放资源，不补齐文件，
+ * 中途失败的导出不会变成一个看起来完整的文件。
+ */
+public interface TableWriter extends Closeable {
+
+    void writeRow(Object... values);
+
+    void finish() throws IOException;
+}
@@ -0,0 +1,66 @@
+package com.bookadmin.export;
+
+import org.apache.poi.ss.usermodel.Cell;
+import org.apache.poi.ss.usermodel.CellStyle;
+import org.apache.poi.ss.usermodel.Row;
+import org.apache.poi.ss.usermodel.Sheet;
+import org.apache.poi.xssf.streaming.SXSSFWorkbook;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+
+/**
+ * 基于 SXSSF 的 XLSX 写出：内存中只保留最近 WINDOW_SIZE 行，其余行落到压缩的临时文件。
+ */
+public class XlsxTableWriter implements TableWriter {
+
+    private static final int WINDOW_SIZE = 100;
+
+    private final OutputStream out;
+    private final SXSSFWorkbook workbook;
+    private final Sheet sheet;
+    private final CellStyle dateTimeStyle;
+    private int rowIndex = 0;
+
+    public XlsxTableWriter(OutputStream out, String sheetName) {
+        this.out = out;
+        this.workbook = new SXSSFWorkbook(WINDOW_SIZE);
+        this.workbook.setCompressTempFiles(true);
+        this.sheet = workbook.createSheet(sheetName);
+        this.dateTimeStyle = workbook.createCellStyle();
+        this.dateTimeStyle.setDataFormat(workbook.getCreationHelper().createDataFormat().getFormat("yyyy-mm-dd hh:mm:ss"));
+    }
+
+    @Override
+    public void writeRow(Object... values) {
+        Row row = sheet.createRow(rowIndex++);
+        for (int i = 0; i < values.length; i++) {
+            Object value = values[i];
+            if (value == null) {
+                continue;
+            }
+            Cell cell = row.createCell(i);
+            if (value instanceof Number number) {
+                cell.setCellValue(number.doubleValue());
+            } else if (value instanceof LocalDateTime dateTime) {
+                cell.setCellValue(dateTime);
+                cell.setCellStyle(dateTimeStyle);
+            } else {
+                cell.setCellValue(value.toString());
+            }
+        }
+    }
+
+    @Override
+    public void finish() throws IOException {
+        workbook.write(out);
+    }
+
+    // 释放临时文件，不写出工作簿
+    @Override
+    public void close() throws IOException {
+        workbook.dispose();
+        workbook.close();
+    }
+}
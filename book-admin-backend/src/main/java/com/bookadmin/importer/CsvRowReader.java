@@ -0,0 +1,83 @@
+package com.bookadmin.importer;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * RFC 4180 CSV，第一行为表头，支持带引号、换行的字段和 UTF-8 BOM。
+ */
+public class CsvRowReader implements RowReader {
+
+    @Override
+    public void read(InputStream in, Consumer<Map<String, String>> consumer) throws IOException {
+        Reader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8), 64 * 1024);
+        List<String> header = null;
+        List<String> record;
+        boolean first = true;
+        while ((record = readRecord(reader, first)) != null) {
+            first = false;
+            if (header == null) {
+                header = record;
+                continue;
+            }
+            if (record.size() == 1 && record.get(0).isEmpty()) {
+                continue;
+            }
+            Map<String, String> row = new LinkedHashMap<>();
+            for (int i = 0; i < header.size() && i < record.size(); i++) {
+                row.put(header.get(i).trim(), record.get(i));
+            }
+            consumer.accept(row);
+        }
+    }
+
+    private List<String> readRecord(Reader reader, boolean first) throws IOException {
+        int c = reader.read();
+        if (first && c == '\uFEFF') {
+            c = reader.read();
+        }
+        if (c < 0) {
+            return null;
+        }
+        List<String> fields = new ArrayList<>();
+        StringBuilder field = new StringBuilder();
+        boolean quoted = false;
+        while (c >= 0) {
+            if (quoted) {
+                if (c == '"') {
+                    int next = reader.read();
+                    if (next == '"') {
+                        field.append('"');
+                    } else {
+                        quoted = false;
+                        c = next;
+                        continue;
+                    }
+                } else {
+                    field.append((char) c);
+                }
+            } else if (c == '"') {
+                quoted = true;
+            } else if (c == ',') {
+                fields.add(field.toString());
+                field.setLength(0);
+            } else if (c == '\n') {
+                break;
+            } else if (c != '\r') {
+                field.append((char) c);
+            }
+            c = reader.read();
+        }
+        fields.add(field.toString());
+        return fields;
+    }
+}
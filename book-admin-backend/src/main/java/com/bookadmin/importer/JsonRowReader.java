@@ -0,0 +1,44 @@
+package com.bookadmin.importer;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * JSON 对象数组，用流式解析器逐个读取数组元素。
+ */
+public class JsonRowReader implements RowReader {
+
+    private final ObjectMapper objectMapper;
+
+    public JsonRowReader(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void read(InputStream in, Consumer<Map<String, String>> consumer) throws IOException {
+        try (JsonParser parser = objectMapper.getFactory().createParser(in)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IOException("Expected a JSON array of books");
+            }
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                JsonNode node = objectMapper.readTree(parser);
+                Map<String, String> row = new LinkedHashMap<>();
+                Iterator<Map.Entry<String, JsonNode>> fields = node.fields();
+                while (fields.hasNext()) {
+                    Map.Entry<String, JsonNode> field = fields.next();
+                    row.put(field.getKey(), field.getValue().isNull() ? null : field.getValue().asText());
+                }
+                consumer.accept(row);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.bookadmin.importer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 流式读取表格数据，每读到一行就以 表头 -> 值 的形式回调，不在内存中保留整个文件。
+ */
+public interface RowReader {
+
+    void read(InputStream in, Consumer<Map<String, String>> consumer) throws IOException;
+}
@@ -0,0 +1,53 @@
+package com.bookadmin.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+import org.springframework.stereotype.Component;
+
+/**
+ * 统计当前线程执行的 SQL。注册为 Hibernate 的 StatementInspector，每条语句预编译前经过这里；
+ * 只有调用 start() 之后的线程才计数，其余线程开销只有一次 ThreadLocal 读取。
+ * 统计可以嵌套（请求内再套 assertMaxQueries），语句同时计入外层统计。
+ */
+@Component
+public class SqlStatementCounter implements StatementInspector {
+
+    private static final ThreadLocal<SqlStatementStats> CURRENT = new ThreadLocal<>();
+
+    public static SqlStatementStats start() {
+        SqlStatementStats stats = new SqlStatementStats(CURRENT.get());
+        CURRENT.set(stats);
+        return stats;
+    }
+
+    // 异步请求再次分派时，在新的线程上继续已暂停的统计
+    public static void resume(SqlStatementStats stats) {
+        CURRENT.set(stats);
+    }
+
+    // 结束 stats 并恢复外层统计
+    public static void stop(SqlStatementStats stats) {
+        if (stats.getParent() != null) {
+            CURRENT.set(stats.getParent());
+        } else {
+            CURRENT.remove();
+        }
+    }
+
+    public static SqlStatementStats current() {
+        return CURRENT.get();
+    }
+
+    static void time(long nanos) {
+        for (SqlStatementStats stats = CURRENT.get(); stats != null; stats = stats.getParent()) {
+            stats.time(nanos);
+        }
+    }
+
+    @Override
+    public String inspect(String sql) {
+        for (SqlStatementStats stats = CURRENT.get(); stats != null; stats = stats.getParent()) {
+            stats.statement(sql);
+        }
+        return sql;
+    }
+}
@@ -0,0 +1,44 @@
+package com.bookadmin.metrics;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * 调试用：写出响应体之前把本请求到目前为止的 SQL 条数和执行耗时放进响应头
+ * （X-Sql-Statements、X-Sql-Time-Ms），由 app.sql-stats.debug-header 开关。
+ */
+@ControllerAdvice
+public class SqlStatementHeaderAdvice implements ResponseBodyAdvice<Object> {
+
+    public static final String STATEMENTS_HEADER = "X-Sql-Statements";
+    public static final String TIME_HEADER = "X-Sql-Time-Ms";
+
+    private final boolean enabled;
+
+    public SqlStatementHeaderAdvice(@Value("${app.sql-stats.debug-header:false}") boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return enabled;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+                                  Class<? extends HttpMessageConverter<?>> selectedConverterType,
+                                  ServerHttpRequest request, ServerHttpResponse response) {
+        SqlStatementStats stats = SqlStatementCounter.current();
+        if (stats != null) {
+            response.getHeaders().set(STATEMENTS_HEADER, Integer.toString(stats.getCount()));
+            response.getHeaders().set(TIME_HEADER, String.format("%.3f", stats.getNanos() / 1_000_000.0));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,92 @@
+package com.bookadmin.metrics;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 按接口记录每个请求执行的 SQL 条数（app.http.sql.statements）和执行耗时（app.http.sql.time），
+ * 标签与 http.server.requests 一致。同一条语句在一个请求里重复超过阈值时记一条警告，通常是 DTO 转换里的 N+1 懒加载。
+ */
+@Slf4j
+@Component
+public class SqlStatementMetricsInterceptor implements AsyncHandlerInterceptor {
+
+    private static final String STATS_ATTRIBUTE = SqlStatementMetricsInterceptor.class.getName() + ".stats";
+
+    private final MeterRegistry meterRegistry;
+    private final int repeatWarnThreshold;
+
+    public SqlStatementMetricsInterceptor(MeterRegistry meterRegistry,
+                                          @Value("${app.sql-stats.repeat-warn-threshold:10}") int repeatWarnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.repeatWarnThreshold = repeatWarnThreshold;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        // 异步请求再次分派时接着请求线程上的统计
+        SqlStatementStats paused = (SqlStatementStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (paused != null) {
+            SqlStatementCounter.resume(paused);
+            return true;
+        }
+        request.setAttribute(STATS_ATTRIBUTE, SqlStatementCounter.start());
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        SqlStatementStats stats = (SqlStatementStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats == null) {
+            return;
+        }
+        request.removeAttribute(STATS_ATTRIBUTE);
+        SqlStatementCounter.stop(stats);
+
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+        DistributionSummary.builder("app.http.sql.statements")
+                .description("SQL statements executed per request")
+                .baseUnit("statements")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getCount());
+        Timer.builder("app.http.sql.time")
+                .description("Time spent executing SQL per request")
+                .tag("method", request.getMethod())
+                .tag("uri", uri)
+                .register(meterRegistry)
+                .record(stats.getNanos(), TimeUnit.NANOSECONDS);
+
+        Map.Entry<String, Integer> repeated = stats.getMostRepeated();
+        if (repeated != null && repeated.getValue() >= repeatWarnThreshold) {
+            log.warn("Possible N+1 in {} {}: {} statements, repeated {} times: {}",
+                    request.getMethod(), request.getRequestURI(), stats.getCount(), repeated.getValue(),
+                    repeated.getKey());
+        }
+    }
+
+    // 异步处理（流式响应、组提交）开始时结束请求线程上的统计，保留在请求属性中，异步完成后再次分派时记录；
+    // 其他线程上执行的 SQL 不计入
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        SqlStatementStats stats = (SqlStatementStats) request.getAttribute(STATS_ATTRIBUTE);
+        if (stats != null) {
+            SqlStatementCounter.stop(stats);
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.bookadmin.metrics;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 一段代码（一个请求或一次 assertMaxQueries）内执行的 SQL 统计：条数、执行耗时、每条语句的重复次数。
+ * 只在所属线程内读写。
+ */
+public class SqlStatementStats {
+
+    private final SqlStatementStats parent;
+    private final Map<String, Integer> statements = new HashMap<>();
+    private int count;
+    private long nanos;
+
+    SqlStatementStats(SqlStatementStats parent) {
+        this.parent = parent;
+    }
+
+    SqlStatementStats getParent() {
+        return parent;
+    }
+
+    void statement(String sql) {
+        count++;
+        statements.merge(sql, 1, Integer::sum);
+    }
+
+    void time(long elapsed) {
+        nanos += elapsed;
+    }
+
+    public int getCount() {
+        return count;
+    }
+
+    public long getNanos() {
+        return nanos;
+    }
+
+    // 重复次数最多的语句，N+1 时就是循环里的那条懒加载查询
+    public Map.Entry<String, Integer> getMostRepeated() {
+        return statements.entrySet().stream()
+                .max(Map.Entry.comparingByValue())
+                .orElse(null);
+    }
+}
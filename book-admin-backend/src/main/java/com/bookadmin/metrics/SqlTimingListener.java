@@ -0,0 +1,31 @@
+package com.bookadmin.metrics;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * 记录语句执行耗时，Hibernate 为每个 Session 创建一个实例（hibernate.session.events.auto）。
+ */
+public class SqlTimingListener implements SessionEventListener {
+
+    private long started;
+
+    @Override
+    public void jdbcExecuteStatementStart() {
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteStatementEnd() {
+        SqlStatementCounter.time(System.nanoTime() - started);
+    }
+
+    @Override
+    public void jdbcExecuteBatchStart() {
+        started = System.nanoTime();
+    }
+
+    @Override
+    public void jdbcExecuteBatchEnd() {
+        SqlStatementCounter.time(System.nanoTime() - started);
+    }
+}
@@ -2,19 +2,46 @@ package com.bookadmin.repository;
 
 import com.bookadmin.entity.Book;
 import com.bookadmin.entity.Category;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BookRepository extends JpaRepository<Book, Long> {
     
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Book> findAll();
+    
+    @Override
+    @EntityGraph(attributePaths = "category")
+    List<Book> findAllById(Iterable<Long> ids);
+    
+    // 流式导出：只读、按批次从游标读取
+    @EntityGraph(attributePaths = "category")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b ORDER BY b.id")
+    Stream<Book> streamAll();
+    
     Optional<Book> findByBookNo(String bookNo);
     
     List<Book> findByNameContaining(String name);
@@ -23,6 +50,7 @@ public interface BookRepository extends JpaRepository<Book, Long> {
     
     List<Book> findByCategory(Category category);
     
+    @EntityGraph(attributePaths = "category")
     @Query("SELECT b FROM Book b WHERE " +
            "(:name IS NULL OR b.name LIKE %:name%) AND " +
            "(:author IS NULL OR b.author LIKE %:author%) AND " +
@@ -32,8 +60,85 @@ public interface BookRepository extends JpaRepository<Book, Long> {
                                @Param("category") String category,
                                Pageable pageable);
     
-    @Query("SELECT b FROM Book b WHERE b.stock > 0")
+    // total=none/approx：多取一行判断是否有下一页，不做COUNT
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT b FROM Book b WHERE " +
+           "(:name IS NULL OR b.name LIKE %:name%) AND " +
+           "(:author IS NULL OR b.author LIKE %:author%) AND " +
+           "(:category IS NULL OR b.category.name LIKE %:category%)")
+    Slice<Book> findSliceByConditions(@Param("name") String name,
+                                     @Param("author") String author,
+                                     @Param("category") String category,
+                                     Pageable pageable);
+    
+    @Query("SELECT COUNT(b) FROM Book b WHERE " +
+           "(:name IS NULL OR b.name LIKE %:name%) AND " +
+           "(:author IS NULL OR b.author LIKE %:author%) AND " +
+           "(:category IS NULL OR b.category.name LIKE %:category%)")
+    long countByConditions(@Param("name") String name,
+                           @Param("author") String author,
+                           @Param("category") String category);
+    
+    // 游标分页：按ID升序，不做COUNT
+    @EntityGraph(attributePaths = "category")
+    @Query("SELECT b FROM Book b WHERE " +
+           "(:name IS NULL OR b.name LIKE %:name%) AND " +
+           "(:author IS NULL OR b.author LIKE %:author%) AND " +
+           "(:category IS NULL OR b.category.name LIKE %:category%) AND " +
+           "b.id > :afterId ORDER BY b.id")
+    List<Book> findByConditionsAfter(@Param("name") String name,
+                                     @Param("author") String author,
+                                     @Param("category") String category,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
+    
+    // 服务端导出：按条件流式读取
+    @EntityGraph(attributePaths = "category")
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Book b WHERE " +
+           "(:name IS NULL OR b.name LIKE %:name%) AND " +
+           "(:author IS NULL OR b.author LIKE %:author%) AND " +
+           "(:category IS NULL OR b.category.name LIKE %:category%) ORDER BY b.id")
+    Stream<Book> streamByConditions(@Param("name") String name,
+                                    @Param("author") String author,
+                                    @Param("category") String category);
+    
+    @Query("SELECT b FROM Book b WHERE b.availableStock > 0")
     List<Book> findAvailableBooks();
+    
+    // 库存变更都用单条条件 UPDATE 完成，返回受影响行数：0 表示图书不存在、库存不足或已改为分片库存
+    @Modifying
+    @Query("UPDATE Book b SET b.stock = b.stock - :quantity, b.version = b.version + 1 " +
+           "WHERE b.id = :id AND b.stockStripes IS NULL AND b.stock >= :quantity")
+    int decreaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE Book b SET b.stock = b.stock + :quantity, b.version = b.version + 1 " +
+           "WHERE b.id = :id AND b.stockStripes IS NULL")
+    int increaseStock(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    // 锁住图书行读取当前分片数，0 表示未分片
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT COALESCE(b.stockStripes, 0) FROM Book b WHERE b.id = :id")
+    Optional<Integer> findStockStripesForUpdate(@Param("id") Long id);
+    
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT b FROM Book b WHERE b.id = :id")
+    Optional<Book> findByIdForUpdate(@Param("id") Long id);
+    
+    @Query("SELECT COALESCE(MAX(b.id), 0) FROM Book b")
+    Long findMaxId();
+    
+    @Query("SELECT b.bookNo FROM Book b WHERE b.bookNo IN :bookNos")
+    List<String> findExistingBookNos(@Param("bookNos") Collection<String> bookNos);
+    
+    // 构建搜索索引用：按ID分批读取 id/name/author/categoryId
+    @Query("SELECT b.id, b.name, b.author, c.id FROM Book b LEFT JOIN b.category c " +
+           "WHERE b.id > :lastId ORDER BY b.id")
+    List<Object[]> findSearchRowsAfter(@Param("lastId") Long lastId, Pageable pageable);
 }
 
 
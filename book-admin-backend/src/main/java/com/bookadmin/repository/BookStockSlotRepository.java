@@ -0,0 +1,39 @@
+package com.bookadmin.repository;
+
+import com.bookadmin.entity.BookStockSlot;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface BookStockSlotRepository extends JpaRepository<BookStockSlot, Long> {
+    
+    @Query("SELECT DISTINCT s.bookId FROM BookStockSlot s")
+    List<Long> findStripedBookIds();
+    
+    long countByBookId(Long bookId);
+    
+    // 重新分配、跨分片扣减时按分片序号加锁，避免死锁
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM BookStockSlot s WHERE s.bookId = :bookId ORDER BY s.slot")
+    List<BookStockSlot> findByBookIdForUpdate(@Param("bookId") Long bookId);
+    
+    @Modifying
+    @Query("UPDATE BookStockSlot s SET s.stock = s.stock - :quantity " +
+           "WHERE s.bookId = :bookId AND s.slot = :slot AND s.stock >= :quantity")
+    int decreaseStock(@Param("bookId") Long bookId, @Param("slot") int slot, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("UPDATE BookStockSlot s SET s.stock = s.stock + :quantity WHERE s.bookId = :bookId AND s.slot = :slot")
+    int increaseStock(@Param("bookId") Long bookId, @Param("slot") int slot, @Param("quantity") int quantity);
+    
+    @Modifying
+    @Query("DELETE FROM BookStockSlot s WHERE s.bookId = :bookId")
+    int deleteByBookId(@Param("bookId") Long bookId);
+}
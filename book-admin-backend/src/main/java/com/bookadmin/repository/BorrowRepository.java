@@ -1,17 +1,27 @@
 package com.bookadmin.repository;
 
+import com.bookadmin.dto.OverdueBorrowDTO;
 import com.bookadmin.entity.Book;
 import com.bookadmin.entity.Borrow;
 import com.bookadmin.entity.User;
 import com.bookadmin.enums.BorrowStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface BorrowRepository extends JpaRepository<Borrow, Long> {
@@ -22,6 +32,7 @@ public interface BorrowRepository extends JpaRepository<Borrow, Long> {
     
     List<Borrow> findByStatus(BorrowStatus status);
     
+    @EntityGraph(attributePaths = {"book", "book.category", "user"})
     @Query("SELECT b FROM Borrow b WHERE " +
            "(:bookName IS NULL OR b.book.name LIKE %:bookName%) AND " +
            "(:userName IS NULL OR b.user.name LIKE %:userName%) AND " +
@@ -32,10 +43,121 @@ public interface BorrowRepository extends JpaRepository<Borrow, Long> {
                                  @Param("author") String author,
                                  @Param("status") BorrowStatus status,
                                  Pageable pageable);
+    
+    // total=none/approx：多取一行判断是否有下一页，不做COUNT
+    @EntityGraph(attributePaths = {"book", "book.category", "user"})
+    @Query("SELECT b FROM Borrow b WHERE " +
+           "(:bookName IS NULL OR b.book.name LIKE %:bookName%) AND " +
+           "(:userName IS NULL OR b.user.name LIKE %:userName%) AND " +
+           "(:author IS NULL OR b.book.author LIKE %:author%) AND " +
+           "(:status IS NULL OR b.status = :status)")
+    Slice<Borrow> findSliceByConditions(@Param("bookName") String bookName,
+                                       @Param("userName") String userName,
+                                       @Param("author") String author,
+                                       @Param("status") BorrowStatus status,
+                                       Pageable pageable);
+    
+    @Query("SELECT COUNT(b) FROM Borrow b WHERE " +
+           "(:bookName IS NULL OR b.book.name LIKE %:bookName%) AND " +
+           "(:userName IS NULL OR b.user.name LIKE %:userName%) AND " +
+           "(:author IS NULL OR b.book.author LIKE %:author%) AND " +
+           "(:status IS NULL OR b.status = :status)")
+    long countByConditions(@Param("bookName") String bookName,
+                           @Param("userName") String userName,
+                           @Param("author") String author,
+                           @Param("status") BorrowStatus status);
+    
+    // 游标分页：按借阅日期、ID倒序（最新的在前），不做COUNT
+    @EntityGraph(attributePaths = {"book", "book.category", "user"})
+    @Query("SELECT b FROM Borrow b WHERE " +
+           "(:bookName IS NULL OR b.book.name LIKE %:bookName%) AND " +
+           "(:userName IS NULL OR b.user.name LIKE %:userName%) AND " +
+           "(:author IS NULL OR b.book.author LIKE %:author%) AND " +
+           "(:status IS NULL OR b.status = :status) AND " +
+           "(:afterDate IS NULL OR b.borrowDate < :afterDate OR " +
+           "(b.borrowDate = :afterDate AND b.id < :afterId)) " +
+           "ORDER BY b.borrowDate DESC, b.id DESC")
+    List<Borrow> findByConditionsAfter(@Param("bookName") String bookName,
+                                       @Param("userName") String userName,
+                                       @Param("author") String author,
+                                       @Param("status") BorrowStatus status,
+                                       @Param("afterDate") LocalDateTime afterDate,
+                                       @Param("afterId") Long afterId,
+                                       Pageable pageable);
+    
+    // 服务端导出：按条件流式读取
+    @EntityGraph(attributePaths = {"book", "user"})
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT b FROM Borrow b WHERE " +
+           "(:bookName IS NULL OR b.book.name LIKE %:bookName%) AND " +
+           "(:userName IS NULL OR b.user.name LIKE %:userName%) AND " +
+           "(:author IS NULL OR b.book.author LIKE %:author%) AND " +
+           "(:status IS NULL OR b.status = :status) ORDER BY b.id")
+    Stream<Borrow> streamByConditions(@Param("bookName") String bookName,
+                                      @Param("userName") String userName,
+                                      @Param("author") String author,
+                                      @Param("status") BorrowStatus status);
+    
+    @Query("SELECT b.book.id FROM Borrow b WHERE b.id = :id")
+    Optional<Long> findBookIdById(@Param("id") Long id);
+    
+    // 逾期扫描：沿 (status, due_date, id) 索引以 (dueDate, id) 为游标分块读取已逾期的未还借阅。
+    // 游标条件写成 dueDate >= :afterDate 的范围、不用 IS NULL 判断，排序带上 status，
+    // 否则 H2 不按索引顺序读取，每块都要把剩余的逾期借阅全部排序一遍
+    @Query("SELECT new com.bookadmin.dto.OverdueBorrowDTO(b.id, bk.id, bk.name, bk.bookNo, u.id, u.name, u.nickName, " +
+           "b.borrowDate, b.dueDate) " +
+           "FROM Borrow b JOIN b.book bk JOIN b.user u " +
+           "WHERE b.status = com.bookadmin.enums.BorrowStatus.ON AND b.dueDate < :now " +
+           "ORDER BY b.status, b.dueDate, b.id")
+    List<OverdueBorrowDTO> findOverdue(@Param("now") LocalDateTime now, Pageable pageable);
+    
+    @Query("SELECT new com.bookadmin.dto.OverdueBorrowDTO(b.id, bk.id, bk.name, bk.bookNo, u.id, u.name, u.nickName, " +
+           "b.borrowDate, b.dueDate) " +
+           "FROM Borrow b JOIN b.book bk JOIN b.user u " +
+           "WHERE b.status = com.bookadmin.enums.BorrowStatus.ON AND b.dueDate < :now AND b.dueDate >= :afterDate " +
+           "AND (b.dueDate > :afterDate OR b.id > :afterId) " +
+           "ORDER BY b.status, b.dueDate, b.id")
+    List<OverdueBorrowDTO> findOverdueAfter(@Param("now") LocalDateTime now,
+                                            @Param("afterDate") LocalDateTime afterDate,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+    
+    // 流通统计重建：按图书、读者、分类汇总借阅数和未还数，每行 [ID, 借阅数, 未还数]
+    @Query("SELECT b.book.id, COUNT(b), SUM(CASE WHEN b.status = com.bookadmin.enums.BorrowStatus.ON THEN 1 ELSE 0 END) " +
+           "FROM Borrow b GROUP BY b.book.id")
+    List<Object[]> countGroupByBook();
+    
+    @Query("SELECT b.user.id, COUNT(b), SUM(CASE WHEN b.status = com.bookadmin.enums.BorrowStatus.ON THEN 1 ELSE 0 END) " +
+           "FROM Borrow b GROUP BY b.user.id")
+    List<Object[]> countGroupByUser();
+    
+    @Query("SELECT bk.category.id, COUNT(b), SUM(CASE WHEN b.status = com.bookadmin.enums.BorrowStatus.ON THEN 1 ELSE 0 END) " +
+           "FROM Borrow b JOIN b.book bk WHERE bk.category IS NOT NULL GROUP BY bk.category.id")
+    List<Object[]> countGroupByCategory();
+    
+    // 日汇总回填：[from, to) 内按天统计借出数、归还数，每行 [日期, 数量]
+    @Query("SELECT CAST(b.borrowDate AS LocalDate), COUNT(b) FROM Borrow b " +
+           "WHERE b.borrowDate >= :from AND b.borrowDate < :to GROUP BY CAST(b.borrowDate AS LocalDate)")
+    List<Object[]> countByBorrowDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT CAST(b.returnDate AS LocalDate), COUNT(b) FROM Borrow b " +
+           "WHERE b.returnDate >= :from AND b.returnDate < :to GROUP BY CAST(b.returnDate AS LocalDate)")
+    List<Object[]> countByReturnDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MIN(b.borrowDate) FROM Borrow b")
+    Optional<LocalDateTime> findFirstBorrowDate();
+    
+    // 只有仍处于借出状态的记录才会被归还，防止重复归还时重复加库存
+    @Modifying(clearAutomatically = true)
+    @Query("UPDATE Borrow b SET b.status = com.bookadmin.enums.BorrowStatus.OFF, b.returnDate = :returnDate, " +
+           "b.version = b.version + 1 " +
+           "WHERE b.id = :id AND b.status = com.bookadmin.enums.BorrowStatus.ON")
+    int markReturned(@Param("id") Long id, @Param("returnDate") LocalDateTime returnDate);
+    
+    @Modifying
+    @Query("DELETE FROM Borrow b WHERE b.id = :id AND b.status = :status")
+    int deleteByIdAndStatus(@Param("id") Long id, @Param("status") BorrowStatus status);
 }
-
-
-
-
-
-
@@ -0,0 +1,27 @@
+package com.bookadmin.repository;
+
+import com.bookadmin.entity.DailyCirculation;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailyCirculationRepository extends JpaRepository<DailyCirculation, LocalDate> {
+    
+    List<DailyCirculation> findByStatDateBetweenOrderByStatDate(LocalDate from, LocalDate to);
+    
+    @Modifying
+    @Query("UPDATE DailyCirculation d SET d.borrows = d.borrows + :borrows, d.returns = d.returns + :returns, " +
+           "d.stockedIn = d.stockedIn + :stockedIn WHERE d.statDate = :day")
+    int increment(@Param("day") LocalDate day, @Param("borrows") long borrows, @Param("returns") long returns,
+                  @Param("stockedIn") long stockedIn);
+    
+    @Modifying
+    @Query("DELETE FROM DailyCirculation d WHERE d.statDate BETWEEN :from AND :to")
+    int deleteByStatDateBetween(@Param("from") LocalDate from, @Param("to") LocalDate to);
+}
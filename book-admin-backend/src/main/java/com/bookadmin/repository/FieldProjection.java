@@ -0,0 +1,154 @@
+package com.bookadmin.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.From;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Path;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.util.StringUtils;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 列表接口 fields= 参数对应的投影查询。每个实体登记允许返回的字段（对外字段名 -> 实体属性路径），
+ * 请求的字段翻译成 Criteria 多列查询，只 SELECT 这些列，结果不经过实体也不进入持久化上下文。
+ * 对外字段名与 DTO 的属性一致，带点号的字段（如 book.name）输出为嵌套对象，返回的是 DTO 的子集。
+ */
+public final class FieldProjection<E> {
+
+    private final Class<E> entityClass;
+    private final Map<String, String> fields = new LinkedHashMap<>();
+
+    private FieldProjection(Class<E> entityClass) {
+        this.entityClass = entityClass;
+    }
+
+    public static <E> FieldProjection<E> of(Class<E> entityClass) {
+        return new FieldProjection<E>(entityClass).field("id");
+    }
+
+    public FieldProjection<E> field(String name) {
+        return field(name, name);
+    }
+
+    public FieldProjection<E> field(String name, String attributePath) {
+        fields.put(name, attributePath);
+        return this;
+    }
+
+    // 解析逗号分隔的字段列表，id 总是返回，未登记的字段直接报错
+    public List<String> parse(String requested) {
+        Set<String> names = new LinkedHashSet<>();
+        names.add("id");
+        if (StringUtils.hasText(requested)) {
+            for (String name : requested.split(",")) {
+                name = name.trim();
+                if (name.isEmpty()) {
+                    continue;
+                }
+                if (!fields.containsKey(name)) {
+                    throw new RuntimeException("Unknown field: " + name);
+                }
+                names.add(name);
+            }
+        }
+        return List.copyOf(names);
+    }
+
+    public List<Map<String, Object>> find(EntityManager entityManager, List<String> names,
+                                          Specification<E> specification, int offset, int limit) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<E> root = query.from(entityClass);
+        query.multiselect(selections(root, names));
+        if (specification != null) {
+            query.where(specification.toPredicate(root, query, cb));
+        }
+        query.orderBy(cb.asc(root.get("id")));
+
+        var typedQuery = entityManager.createQuery(query).setFirstResult(offset);
+        if (limit > 0) {
+            typedQuery.setMaxResults(limit);
+        }
+        return typedQuery.getResultList().stream()
+                .map(tuple -> toRow(tuple, names))
+                .collect(Collectors.toList());
+    }
+
+    // 按给定ID顺序返回（搜索索引已经排好序）
+    public List<Map<String, Object>> findAllById(EntityManager entityManager, List<String> names, List<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        Map<Object, Map<String, Object>> rows = find(entityManager, names,
+                (root, query, cb) -> root.get("id").in(ids), 0, 0).stream()
+                .collect(Collectors.toMap(row -> row.get("id"), row -> row));
+        return ids.stream()
+                .map(rows::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+
+    private List<Selection<?>> selections(Root<E> root, List<String> names) {
+        List<Selection<?>> selections = new ArrayList<>(names.size());
+        for (String name : names) {
+            selections.add(path(root, fields.get(name)).alias(name));
+        }
+        return selections;
+    }
+
+    // 关联属性左连接，已有的连接直接复用，过滤条件也通过这里取路径，与查询列共用同一个连接；
+    // 取关联的 id 时直接用外键列，不连接
+    @SuppressWarnings("unchecked")
+    public static <T> Path<T> path(From<?, ?> root, String attributePath) {
+        String[] segments = attributePath.split("\\.");
+        int last = segments.length - 1;
+        int joined = "id".equals(segments[last]) && last > 0 ? last - 1 : last;
+
+        From<?, ?> from = root;
+        for (int i = 0; i < joined; i++) {
+            from = join(from, segments[i]);
+        }
+        Path<?> path = from;
+        for (int i = joined; i <= last; i++) {
+            path = path.get(segments[i]);
+        }
+        return (Path<T>) path;
+    }
+
+    private static From<?, ?> join(From<?, ?> from, String attribute) {
+        for (Join<?, ?> join : from.getJoins()) {
+            if (join.getAttribute().getName().equals(attribute)) {
+                return join;
+            }
+        }
+        return from.join(attribute, JoinType.LEFT);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static Map<String, Object> toRow(Tuple tuple, List<String> names) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (String name : names) {
+            Map<String, Object> target = row;
+            String[] segments = name.split("\\.");
+            for (int i = 0; i < segments.length - 1; i++) {
+                target = (Map<String, Object>) target.computeIfAbsent(segments[i], key -> new LinkedHashMap<>());
+            }
+            target.put(segments[segments.length - 1], tuple.get(name));
+        }
+        return row;
+    }
+}
@@ -0,0 +1,83 @@
+package com.bookadmin.repository;
+
+import com.bookadmin.dto.BookDTO;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * 图书的响应式只读查询（R2DBC），过滤条件与 BookRepository.findByConditions 相同，结果直接映射为 DTO，按 ID 升序。
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveBookRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<BookDTO> findByConditions(String name, String author, String category, long offset, int limit) {
+        SqlFilter filter = conditions(name, author, category);
+        String sql = "SELECT " + columns("b", "c", "") + " FROM books b LEFT JOIN categories c ON c.id = b.category_id"
+                + filter.where() + " ORDER BY b.id" + SqlFilter.page(offset, limit);
+        return filter.bind(databaseClient.sql(sql))
+                .map(row -> toDTO(row, ""))
+                .all();
+    }
+
+    public Mono<Long> countByConditions(String name, String author, String category) {
+        SqlFilter filter = conditions(name, author, category);
+        String sql = "SELECT COUNT(*) AS total FROM books b LEFT JOIN categories c ON c.id = b.category_id"
+                + filter.where();
+        return filter.bind(databaseClient.sql(sql))
+                .map(row -> SqlFilter.longValue(row.get("total")))
+                .one();
+    }
+
+    private static SqlFilter conditions(String name, String author, String category) {
+        return new SqlFilter()
+                .like("b.name", "name", name)
+                .like("b.author", "author", author)
+                .like("c.name", "category", category);
+    }
+
+    // 图书列，借阅查询带上前缀复用；库存取值与 Book.availableStock 的 @Formula 相同
+    static String columns(String book, String category, String prefix) {
+        return book + ".id AS " + prefix + "id, "
+                + book + ".name AS " + prefix + "name, "
+                + book + ".author AS " + prefix + "author, "
+                + book + ".description AS " + prefix + "description, "
+                + book + ".created_at AS " + prefix + "created_at, "
+                + book + ".publish_at AS " + prefix + "publish_at, "
+                + book + ".book_no AS " + prefix + "book_no, "
+                + book + ".cover AS " + prefix + "cover, "
+                + "CASE WHEN " + book + ".stock_stripes IS NULL THEN " + book + ".stock ELSE "
+                + "(SELECT COALESCE(SUM(s.stock), 0) FROM book_stock_slots s WHERE s.book_id = " + book + ".id) END AS "
+                + prefix + "stock, "
+                + book + ".stock_stripes AS " + prefix + "stock_stripes, "
+                + book + ".version AS " + prefix + "version, "
+                + category + ".id AS " + prefix + "category_id, "
+                + category + ".name AS " + prefix + "category_name";
+    }
+
+    static BookDTO toDTO(Readable row, String prefix) {
+        BookDTO dto = new BookDTO();
+        dto.setId(SqlFilter.longValue(row.get(prefix + "id")));
+        dto.setName(row.get(prefix + "name", String.class));
+        dto.setAuthor(row.get(prefix + "author", String.class));
+        dto.setDescription(row.get(prefix + "description", String.class));
+        dto.setCreatedAt(row.get(prefix + "created_at", LocalDateTime.class));
+        dto.setPublishAt(SqlFilter.intValue(row.get(prefix + "publish_at")));
+        dto.setBookNo(row.get(prefix + "book_no", String.class));
+        dto.setCover(row.get(prefix + "cover", String.class));
+        dto.setStock(SqlFilter.intValue(row.get(prefix + "stock")));
+        dto.setStockStripes(SqlFilter.intValue(row.get(prefix + "stock_stripes")));
+        dto.setVersion(SqlFilter.longValue(row.get(prefix + "version")));
+        dto.setCategory(row.get(prefix + "category_name", String.class));
+        dto.setCategoryId(SqlFilter.longValue(row.get(prefix + "category_id")));
+        return dto;
+    }
+}
@@ -0,0 +1,67 @@
+package com.bookadmin.repository;
+
+import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.enums.BorrowStatus;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * 借阅的响应式只读查询（R2DBC），过滤条件与 BorrowRepository.findByConditions 相同，
+ * 图书、分类、读者一次连接查出，按 ID 升序。
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveBorrowRepository {
+
+    private static final String FROM = " FROM borrows w JOIN books b ON b.id = w.book_id "
+            + "LEFT JOIN categories c ON c.id = b.category_id JOIN users u ON u.id = w.user_id";
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<BorrowDTO> findByConditions(String bookName, String userName, String author, BorrowStatus status,
+                                            long offset, int limit) {
+        SqlFilter filter = conditions(bookName, userName, author, status);
+        String sql = "SELECT w.id, w.status, w.borrow_date, w.return_date, w.due_date, w.version, "
+                + ReactiveBookRepository.columns("b", "c", "book_") + ", "
+                + ReactiveUserRepository.columns("u", "user_")
+                + FROM + filter.where() + " ORDER BY w.id" + SqlFilter.page(offset, limit);
+        return filter.bind(databaseClient.sql(sql))
+                .map(ReactiveBorrowRepository::toDTO)
+                .all();
+    }
+
+    public Mono<Long> countByConditions(String bookName, String userName, String author, BorrowStatus status) {
+        SqlFilter filter = conditions(bookName, userName, author, status);
+        return filter.bind(databaseClient.sql("SELECT COUNT(*) AS total" + FROM + filter.where()))
+                .map(row -> SqlFilter.longValue(row.get("total")))
+                .one();
+    }
+
+    private static SqlFilter conditions(String bookName, String userName, String author, BorrowStatus status) {
+        return new SqlFilter()
+                .like("b.name", "bookName", bookName)
+                .like("u.name", "userName", userName)
+                .like("b.author", "author", author)
+                .eq("w.status", "status", status);
+    }
+
+    private static BorrowDTO toDTO(Readable row) {
+        BorrowDTO dto = new BorrowDTO();
+        dto.setId(SqlFilter.longValue(row.get("id")));
+        String status = row.get("status", String.class);
+        dto.setStatus(status != null ? BorrowStatus.valueOf(status) : null);
+        dto.setBorrowDate(row.get("borrow_date", LocalDateTime.class));
+        dto.setReturnDate(row.get("return_date", LocalDateTime.class));
+        dto.setDueDate(row.get("due_date", LocalDateTime.class));
+        dto.setVersion(SqlFilter.longValue(row.get("version")));
+        dto.setBook(ReactiveBookRepository.toDTO(row, "book_"));
+        dto.setUser(ReactiveUserRepository.toDTO(row, "user_"));
+        return dto;
+    }
+}
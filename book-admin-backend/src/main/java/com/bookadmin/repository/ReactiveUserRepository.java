@@ -0,0 +1,73 @@
+package com.bookadmin.repository;
+
+import com.bookadmin.dto.UserDTO;
+import com.bookadmin.enums.UserRole;
+import com.bookadmin.enums.UserSex;
+import com.bookadmin.enums.UserStatus;
+import io.r2dbc.spi.Readable;
+import lombok.RequiredArgsConstructor;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+
+/**
+ * 用户的响应式只读查询（R2DBC），过滤条件与 UserRepository.findByConditions 相同，按 ID 升序。
+ */
+@Repository
+@RequiredArgsConstructor
+public class ReactiveUserRepository {
+
+    private final DatabaseClient databaseClient;
+
+    public Flux<UserDTO> findByConditions(String name, UserStatus status, long offset, int limit) {
+        SqlFilter filter = conditions(name, status);
+        String sql = "SELECT " + columns("u", "") + " FROM users u" + filter.where() + " ORDER BY u.id"
+                + SqlFilter.page(offset, limit);
+        return filter.bind(databaseClient.sql(sql))
+                .map(row -> toDTO(row, ""))
+                .all();
+    }
+
+    public Mono<Long> countByConditions(String name, UserStatus status) {
+        SqlFilter filter = conditions(name, status);
+        return filter.bind(databaseClient.sql("SELECT COUNT(*) AS total FROM users u" + filter.where()))
+                .map(row -> SqlFilter.longValue(row.get("total")))
+                .one();
+    }
+
+    private static SqlFilter conditions(String name, UserStatus status) {
+        return new SqlFilter()
+                .like("u.name", "name", name)
+                .eq("u.status", "status", status);
+    }
+
+    static String columns(String user, String prefix) {
+        return user + ".id AS " + prefix + "id, "
+                + user + ".name AS " + prefix + "name, "
+                + user + ".nick_name AS " + prefix + "nick_name, "
+                + user + ".role AS " + prefix + "role, "
+                + user + ".status AS " + prefix + "status, "
+                + user + ".sex AS " + prefix + "sex, "
+                + user + ".created_at AS " + prefix + "created_at, "
+                + user + ".version AS " + prefix + "version";
+    }
+
+    static UserDTO toDTO(Readable row, String prefix) {
+        UserDTO dto = new UserDTO();
+        dto.setId(SqlFilter.longValue(row.get(prefix + "id")));
+        dto.setName(row.get(prefix + "name", String.class));
+        dto.setNickName(row.get(prefix + "nick_name", String.class));
+        String role = row.get(prefix + "role", String.class);
+        dto.setRole(role != null ? UserRole.valueOf(role) : null);
+        String status = row.get(prefix + "status", String.class);
+        dto.setStatus(status != null ? UserStatus.valueOf(status) : null);
+        String sex = row.get(prefix + "sex", String.class);
+        dto.setSex(sex != null ? UserSex.valueOf(sex) : null);
+        dto.setCreatedAt(row.get(prefix + "created_at", LocalDateTime.class));
+        dto.setVersion(SqlFilter.longValue(row.get(prefix + "version")));
+        return dto;
+    }
+}
@@ -0,0 +1,58 @@
+package com.bookadmin.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 响应式查询的 WHERE 子句：条件为空时不加入，与 JPQL 中 (:x IS NULL OR ...) 的语义相同，
+ * 模糊匹配两边加 %，与 @Query 中 LIKE %:x% 一致。参数名在 SQL 中写作 :name，由 DatabaseClient 转成各驱动的占位符。
+ */
+final class SqlFilter {
+
+    private final List<String> clauses = new ArrayList<>();
+    private final Map<String, Object> params = new LinkedHashMap<>();
+
+    SqlFilter like(String column, String param, String value) {
+        if (value != null) {
+            clauses.add(column + " LIKE :" + param);
+            params.put(param, "%" + value + "%");
+        }
+        return this;
+    }
+
+    SqlFilter eq(String column, String param, Object value) {
+        if (value != null) {
+            clauses.add(column + " = :" + param);
+            params.put(param, value instanceof Enum<?> e ? e.name() : value);
+        }
+        return this;
+    }
+
+    String where() {
+        return clauses.isEmpty() ? "" : " WHERE " + String.join(" AND ", clauses);
+    }
+
+    DatabaseClient.GenericExecuteSpec bind(DatabaseClient.GenericExecuteSpec spec) {
+        for (Map.Entry<String, Object> param : params.entrySet()) {
+            spec = spec.bind(param.getKey(), param.getValue());
+        }
+        return spec;
+    }
+
+    // 偏移分页，limit 为 0 时不限制条数（流式读取）
+    static String page(long offset, int limit) {
+        return limit > 0 ? " LIMIT " + limit + " OFFSET " + offset : "";
+    }
+
+    static Integer intValue(Object value) {
+        return value instanceof Number number ? number.intValue() : null;
+    }
+
+    static Long longValue(Object value) {
+        return value instanceof Number number ? number.longValue() : null;
+    }
+}
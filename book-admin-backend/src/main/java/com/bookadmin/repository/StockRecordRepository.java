@@ -3,14 +3,22 @@ package com.bookadmin.repository;
 import com.bookadmin.entity.StockRecord;
 import com.bookadmin.entity.Book;
 import com.bookadmin.entity.User;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface StockRecordRepository extends JpaRepository<StockRecord, Long> {
@@ -19,12 +27,72 @@ public interface StockRecordRepository extends JpaRepository<StockRecord, Long>
     
     List<StockRecord> findByAdmin(User admin);
     
+    @EntityGraph(attributePaths = {"book", "book.category", "admin"})
     @Query("SELECT sr FROM StockRecord sr WHERE " +
            "(:bookName IS NULL OR sr.book.name LIKE %:bookName%) AND " +
            "(:adminName IS NULL OR sr.admin.name LIKE %:adminName%)")
     Page<StockRecord> findByConditions(@Param("bookName") String bookName,
                                        @Param("adminName") String adminName,
                                        Pageable pageable);
+    
+    // total=none/approx：多取一行判断是否有下一页，不做COUNT
+    @EntityGraph(attributePaths = {"book", "book.category", "admin"})
+    @Query("SELECT sr FROM StockRecord sr WHERE " +
+           "(:bookName IS NULL OR sr.book.name LIKE %:bookName%) AND " +
+           "(:adminName IS NULL OR sr.admin.name LIKE %:adminName%)")
+    Slice<StockRecord> findSliceByConditions(@Param("bookName") String bookName,
+                                             @Param("adminName") String adminName,
+                                             Pageable pageable);
+    
+    @Query("SELECT COUNT(sr) FROM StockRecord sr WHERE " +
+           "(:bookName IS NULL OR sr.book.name LIKE %:bookName%) AND " +
+           "(:adminName IS NULL OR sr.admin.name LIKE %:adminName%)")
+    long countByConditions(@Param("bookName") String bookName,
+                           @Param("adminName") String adminName);
+    
+    // 游标分页：按入库时间、ID倒序，不做COUNT
+    @EntityGraph(attributePaths = {"book", "book.category", "admin"})
+    @Query("SELECT sr FROM StockRecord sr WHERE " +
+           "(:bookName IS NULL OR sr.book.name LIKE %:bookName%) AND " +
+           "(:adminName IS NULL OR sr.admin.name LIKE %:adminName%) AND " +
+           "(:afterDate IS NULL OR sr.createdAt < :afterDate OR " +
+           "(sr.createdAt = :afterDate AND sr.id < :afterId)) " +
+           "ORDER BY sr.createdAt DESC, sr.id DESC")
+    List<StockRecord> findByConditionsAfter(@Param("bookName") String bookName,
+                                            @Param("adminName") String adminName,
+                                            @Param("afterDate") LocalDateTime afterDate,
+                                            @Param("afterId") Long afterId,
+                                            Pageable pageable);
+    
+    // 服务端导出：按条件流式读取
+    @EntityGraph(attributePaths = {"book", "admin"})
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT sr FROM StockRecord sr WHERE " +
+           "(:bookName IS NULL OR sr.book.name LIKE %:bookName%) AND " +
+           "(:adminName IS NULL OR sr.admin.name LIKE %:adminName%) ORDER BY sr.id")
+    Stream<StockRecord> streamByConditions(@Param("bookName") String bookName,
+                                           @Param("adminName") String adminName);
+    
+    // 只取签名的哈希和类型，不加载入库记录
+    @Query("SELECT s.signatureHash, s.signatureType FROM StockRecord s WHERE s.id = :id")
+    List<Object[]> findSignatureById(@Param("id") Long id);
+    
+    // 流通统计重建：按图书、分类汇总入库数量，每行 [ID, 入库数量]
+    @Query("SELECT s.book.id, SUM(s.stockQuantity) FROM StockRecord s GROUP BY s.book.id")
+    List<Object[]> sumQuantityGroupByBook();
+    
+    @Query("SELECT bk.category.id, SUM(s.stockQuantity) FROM StockRecord s JOIN s.book bk " +
+           "WHERE bk.category IS NOT NULL GROUP BY bk.category.id")
+    List<Object[]> sumQuantityGroupByCategory();
+    
+    // 日汇总回填：[from, to) 内按天汇总入库数量，每行 [日期, 数量]
+    @Query("SELECT CAST(s.createdAt AS LocalDate), SUM(s.stockQuantity) FROM StockRecord s " +
+           "WHERE s.createdAt >= :from AND s.createdAt < :to GROUP BY CAST(s.createdAt AS LocalDate)")
+    List<Object[]> sumQuantityByDay(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+    
+    @Query("SELECT MIN(s.createdAt) FROM StockRecord s")
+    Optional<LocalDateTime> findFirstCreatedAt();
 }
-
-
@@ -2,19 +2,32 @@ package com.bookadmin.repository;
 
 import com.bookadmin.entity.User;
 import com.bookadmin.enums.UserStatus;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
     
+    // 流式导出：只读、按批次从游标读取
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("SELECT u FROM User u ORDER BY u.id")
+    Stream<User> streamAll();
+    
     Optional<User> findByName(String name);
     
     List<User> findByNameContaining(String name);
@@ -27,6 +40,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     Page<User> findByConditions(@Param("name") String name, 
                                 @Param("status") UserStatus status, 
                                 Pageable pageable);
+    
+    // total=none/approx：多取一行判断是否有下一页，不做COUNT
+    @Query("SELECT u FROM User u WHERE " +
+           "(:name IS NULL OR u.name LIKE %:name%) AND " +
+           "(:status IS NULL OR u.status = :status)")
+    Slice<User> findSliceByConditions(@Param("name") String name,
+                                      @Param("status") UserStatus status,
+                                      Pageable pageable);
+    
+    @Query("SELECT COUNT(u) FROM User u WHERE " +
+           "(:name IS NULL OR u.name LIKE %:name%) AND " +
+           "(:status IS NULL OR u.status = :status)")
+    long countByConditions(@Param("name") String name,
+                           @Param("status") UserStatus status);
+    
+    // 游标分页：按ID升序，不做COUNT
+    @Query("SELECT u FROM User u WHERE " +
+           "(:name IS NULL OR u.name LIKE %:name%) AND " +
+           "(:status IS NULL OR u.status = :status) AND " +
+           "u.id > :afterId ORDER BY u.id")
+    List<User> findByConditionsAfter(@Param("name") String name,
+                                     @Param("status") UserStatus status,
+                                     @Param("afterId") Long afterId,
+                                     Pageable pageable);
 }
 
 
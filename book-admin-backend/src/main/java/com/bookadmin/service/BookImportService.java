@@ -0,0 +1,278 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookImportResult;
+import com.bookadmin.entity.Category;
+import com.bookadmin.enums.ImportFormat;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.importer.CsvRowReader;
+import com.bookadmin.importer.JsonRowReader;
+import com.bookadmin.importer.RowReader;
+import com.bookadmin.importer.XlsxRowReader;
+import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.CategoryRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.util.StringUtils;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 图书批量导入：流式读取 CSV/JSON/XLSX，逐行校验后按批用 JDBC batch 写入。
+ * Book 使用 IDENTITY 主键，Hibernate 无法批量插入，这里绕过持久化上下文直接批量执行 INSERT，
+ * MySQL 需在连接串中开启 rewriteBatchedStatements=true 才会合并成多行 INSERT。
+ */
+@Slf4j
+@Service
+@Timed("app.service")
+@RequiredArgsConstructor
+public class BookImportService {
+
+    private static final int BATCH_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 1000;
+    private static final String INSERT_SQL = "INSERT INTO books " +
+            "(name, author, description, publish_at, book_no, cover, stock, category_id, created_at, version) " +
+            "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, 0)";
+
+    // 支持前端导出的中文表头和字段名两种写法
+    private static final Map<String, String> HEADER_ALIASES = Map.ofEntries(
+            Map.entry("名称", "name"),
+            Map.entry("作者", "author"),
+            Map.entry("描述", "description"),
+            Map.entry("出版年份", "publishAt"),
+            Map.entry("图书编号", "bookNo"),
+            Map.entry("封面", "cover"),
+            Map.entry("库存", "stock"),
+            Map.entry("分类ID", "categoryId"),
+            Map.entry("分类", "category")
+    );
+
+    private final BookRepository bookRepository;
+    private final CategoryRepository categoryRepository;
+    private final BookSearchIndex bookSearchIndex;
+    private final ChangeCounters changeCounters;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectMapper objectMapper;
+
+    public BookImportResult importBooks(InputStream in, ImportFormat format) throws IOException {
+        long start = System.currentTimeMillis();
+        long maxIdBefore = bookRepository.findMaxId();
+
+        ImportBatch batch = new ImportBatch(categoryRepository.findAll());
+        rowReader(format).read(in, batch::add);
+        batch.flush();
+
+        // 新插入的行没有经过 BookService，按ID区间补进搜索索引
+        bookSearchIndex.indexAfter(maxIdBefore);
+        changeCounters.touch(TrackedTable.BOOKS);
+
+        BookImportResult result = batch.result;
+        result.setElapsedMillis(System.currentTimeMillis() - start);
+        log.info("Imported {} of {} books in {} ms", result.getImported(), result.getTotal(), result.getElapsedMillis());
+        return result;
+    }
+
+    private RowReader rowReader(ImportFormat format) {
+        switch (format) {
+            case JSON:
+                return new JsonRowReader(objectMapper);
+            case XLSX:
+                return new XlsxRowReader();
+            default:
+                return new CsvRowReader();
+        }
+    }
+
+    private record BookRow(long row, String name, String author, String description, Integer publishAt,
+                           String bookNo, String cover, int stock, Long categoryId) {
+    }
+
+    private class ImportBatch {
+        private final Map<Long, Category> categoriesById = new HashMap<>();
+        private final Map<String, Long> categoryIdsByName = new HashMap<>();
+        private final Set<String> seenBookNos = new HashSet<>();
+        private final List<BookRow> pending = new ArrayList<>(BATCH_SIZE);
+        private final BookImportResult result = new BookImportResult(0L, 0L, 0L, 0L, new ArrayList<>());
+
+        ImportBatch(List<Category> categories) {
+            for (Category category : categories) {
+                categoriesById.put(category.getId(), category);
+                categoryIdsByName.putIfAbsent(category.getName(), category.getId());
+            }
+        }
+
+        void add(Map<String, String> raw) {
+            long row = result.getTotal() + 1;
+            result.setTotal(row);
+
+            Map<String, String> values = new HashMap<>();
+            raw.forEach((key, value) -> values.put(HEADER_ALIASES.getOrDefault(key, key),
+                    value != null ? value.trim() : null));
+
+            String bookNo = StringUtils.hasText(values.get("bookNo")) ? values.get("bookNo") : null;
+            try {
+                BookRow bookRow = parse(row, values, bookNo);
+                if (bookNo != null && !seenBookNos.add(bookNo)) {
+                    throw new IllegalArgumentException("Duplicate bookNo in file");
+                }
+                pending.add(bookRow);
+            } catch (IllegalArgumentException e) {
+                fail(row, bookNo, e.getMessage());
+            }
+
+            if (pending.size() >= BATCH_SIZE) {
+                flush();
+            }
+        }
+
+        private BookRow parse(long row, Map<String, String> values, String bookNo) {
+            String name = values.get("name");
+            String author = values.get("author");
+            if (!StringUtils.hasText(name)) {
+                throw new IllegalArgumentException("name is required");
+            }
+            if (!StringUtils.hasText(author)) {
+                throw new IllegalArgumentException("author is required");
+            }
+            Integer stock = parseInteger(values.get("stock"), "stock");
+            if (stock != null && stock < 0) {
+                throw new IllegalArgumentException("stock must not be negative");
+            }
+
+            Long categoryId = null;
+            String rawCategoryId = values.get("categoryId");
+            if (StringUtils.hasText(rawCategoryId)) {
+                categoryId = parseLong(rawCategoryId, "categoryId");
+                if (!categoriesById.containsKey(categoryId)) {
+                    throw new IllegalArgumentException("Category not found: " + rawCategoryId);
+                }
+            } else if (StringUtils.hasText(values.get("category"))) {
+                categoryId = categoryIdsByName.get(values.get("category"));
+                if (categoryId == null) {
+                    throw new IllegalArgumentException("Category not found: " + values.get("category"));
+                }
+            }
+
+            return new BookRow(row, name, author, values.get("description"),
+                    parseInteger(values.get("publishAt"), "publishAt"), bookNo, values.get("cover"),
+                    stock != null ? stock : 0, categoryId);
+        }
+
+        private Integer parseInteger(String value, String field) {
+            BigDecimal number = parseNumber(value, field);
+            try {
+                return number != null ? number.intValueExact() : null;
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(field + " must be an integer");
+            }
+        }
+
+        private Long parseLong(String value, String field) {
+            BigDecimal number = parseNumber(value, field);
+            try {
+                return number != null ? number.longValueExact() : null;
+            } catch (ArithmeticException e) {
+                throw new IllegalArgumentException(field + " must be an integer");
+            }
+        }
+
+        // XLSX 中的数字可能带小数部分，如 "5.0"；只接受小数部分为 0 的值，"2.7"、超出范围的值按行报错
+        private BigDecimal parseNumber(String value, String field) {
+            if (!StringUtils.hasText(value)) {
+                return null;
+            }
+            try {
+                return new BigDecimal(value);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException(field + " must be a number");
+            }
+        }
+
+        void flush() {
+            if (pending.isEmpty()) {
+                return;
+            }
+            List<BookRow> rows = rejectExistingBookNos(pending);
+            try {
+                transactionTemplate.executeWithoutResult(status -> insert(rows));
+                result.setImported(result.getImported() + rows.size());
+            } catch (DataAccessException e) {
+                log.warn("Book import batch failed", e);
+                for (BookRow row : rows) {
+                    fail(row.row(), row.bookNo(), "Batch insert failed: " + e.getMostSpecificCause().getMessage());
+                }
+            }
+            pending.clear();
+        }
+
+        private List<BookRow> rejectExistingBookNos(List<BookRow> rows) {
+            List<String> bookNos = rows.stream()
+                    .map(BookRow::bookNo)
+                    .filter(bookNo -> bookNo != null)
+                    .toList();
+            if (bookNos.isEmpty()) {
+                return rows;
+            }
+            Set<String> existing = new HashSet<>(bookRepository.findExistingBookNos(bookNos));
+            if (existing.isEmpty()) {
+                return rows;
+            }
+            List<BookRow> accepted = new ArrayList<>(rows.size());
+            for (BookRow row : rows) {
+                if (row.bookNo() != null && existing.contains(row.bookNo())) {
+                    fail(row.row(), row.bookNo(), "Duplicate bookNo");
+                } else {
+                    accepted.add(row);
+                }
+            }
+            return accepted;
+        }
+
+        private void insert(List<BookRow> rows) {
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            jdbcTemplate.batchUpdate(INSERT_SQL, rows, rows.size(), (ps, row) -> {
+                ps.setString(1, row.name());
+                ps.setString(2, row.author());
+                ps.setString(3, row.description());
+                if (row.publishAt() != null) {
+                    ps.setInt(4, row.publishAt());
+                } else {
+                    ps.setNull(4, Types.INTEGER);
+                }
+                ps.setString(5, row.bookNo());
+                ps.setString(6, row.cover());
+                ps.setInt(7, row.stock());
+                if (row.categoryId() != null) {
+                    ps.setLong(8, row.categoryId());
+                } else {
+                    ps.setNull(8, Types.BIGINT);
+                }
+                ps.setTimestamp(9, now);
+            });
+        }
+
+        private void fail(long row, String bookNo, String message) {
+            result.setFailed(result.getFailed() + 1);
+            if (result.getErrors().size() < MAX_REPORTED_ERRORS) {
+                result.getErrors().add(new BookImportResult.RowError(row, bookNo, message));
+            }
+        }
+    }
+}
@@ -0,0 +1,461 @@
+package com.bookadmin.service;
+
+import com.bookadmin.entity.Book;
+import com.bookadmin.repository.BookRepository;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.util.StringUtils;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 图书名称/作者的内存 n-gram 倒排索引，替代 LIKE '%x%' 全表扫描。
+ * 每个字段按单字和双字切分（对中文按字切分即可），查询时求倒排表交集后再做一次 contains 校验，得到精确的总数。
+ * 重建时不持有锁，在新的索引上构建完成后再整体替换，期间提交的修改照常写入当前索引并记下，替换前重放到新索引上。
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class BookSearchIndex {
+
+    private static final int BUILD_BATCH_SIZE = 10000;
+
+    private final BookRepository bookRepository;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // 当前生效的索引，读写都在 lock 下进行
+    private Segment segment = new Segment();
+    // 重建期间提交的修改，document 为 null 表示删除；不在重建时为 null
+    private List<Change> pendingChanges;
+
+    private volatile boolean ready = false;
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            pendingChanges = new ArrayList<>();
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        // 构建期间不持有锁，搜索和提交后的 index/remove 照常进行
+        Segment rebuilt = new Segment();
+        boolean built = false;
+        int replayed = 0;
+        try {
+            loadAfter(0L, rebuilt::put);
+            built = true;
+        } finally {
+            lock.writeLock().lock();
+            try {
+                if (built) {
+                    // 构建时这些修改可能已读到、也可能没读到，按提交顺序重放后都以最后一次修改为准
+                    replayed = pendingChanges.size();
+                    pendingChanges.forEach(change -> rebuilt.put(change.id(), change.document()));
+                    segment = rebuilt;
+                    ready = true;
+                }
+                pendingChanges = null;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+        log.info("Book search index built: {} books ({} changes replayed) in {} ms",
+                rebuilt.documents.size(), replayed, System.currentTimeMillis() - start);
+    }
+
+    // 把 ID 大于 afterId 的行补进索引，用于绕过 BookService 的批量写入
+    public void indexAfter(long afterId) {
+        lock.writeLock().lock();
+        try {
+            loadAfter(afterId, this::apply);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void loadAfter(long afterId, BiConsumer<Long, IndexedBook> sink) {
+        long lastId = afterId;
+        while (true) {
+            List<Object[]> rows = bookRepository.findSearchRowsAfter(lastId, PageRequest.of(0, BUILD_BATCH_SIZE));
+            if (rows.isEmpty()) {
+                break;
+            }
+            for (Object[] row : rows) {
+                Long id = (Long) row[0];
+                sink.accept(id, new IndexedBook(normalize((String) row[1]), normalize((String) row[2]), (Long) row[3]));
+                lastId = id;
+            }
+        }
+    }
+
+    // 修改当前索引，重建期间同时记下；调用方持有写锁
+    private void apply(Long id, IndexedBook document) {
+        segment.put(id, document);
+        if (pendingChanges != null) {
+            pendingChanges.add(new Change(id, document));
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    // 新增或替换索引文档，在事务中调用时推迟到提交之后生效
+    public void index(Book book) {
+        Long id = book.getId();
+        IndexedBook document = new IndexedBook(
+                normalize(book.getName()),
+                normalize(book.getAuthor()),
+                book.getCategory() != null ? book.getCategory().getId() : null);
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                apply(id, document);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    public void remove(Long id) {
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                apply(id, null);
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * @param categoryIds 名称匹配分类条件的分类ID，null 表示不按分类过滤
+     */
+    public SearchResult search(String name, String author, Collection<Long> categoryIds, int offset, int limit) {
+        String nameQuery = StringUtils.hasText(name) ? normalize(name) : null;
+        String authorQuery = StringUtils.hasText(author) ? normalize(author) : null;
+
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = candidateLists(segment, nameQuery, authorQuery, categoryIds);
+            if (lists == null) {
+                return SearchResult.EMPTY;
+            }
+            PostingList smallest = lists.get(0);
+            List<Long> pageIds = new ArrayList<>(Math.max(limit, 0));
+            if (lists.size() == 1 && nameQuery == null && authorQuery == null) {
+                for (int i = offset; i < smallest.size() && pageIds.size() < limit; i++) {
+                    pageIds.add(smallest.get(i));
+                }
+                return new SearchResult(pageIds, smallest.size());
+            }
+
+            long total = 0;
+            for (int i = 0; i < smallest.size(); i++) {
+                long id = smallest.get(i);
+                if (!matches(segment, lists, id, nameQuery, authorQuery)) {
+                    continue;
+                }
+                if (total >= offset && pageIds.size() < limit) {
+                    pageIds.add(id);
+                }
+                total++;
+            }
+            return new SearchResult(pageIds, total);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 游标分页：返回 ID 大于 afterId 的前 limit 条，不计算总数
+    public List<Long> searchAfter(String name, String author, Collection<Long> categoryIds, long afterId, int limit) {
+        String nameQuery = StringUtils.hasText(name) ? normalize(name) : null;
+        String authorQuery = StringUtils.hasText(author) ? normalize(author) : null;
+
+        lock.readLock().lock();
+        try {
+            List<PostingList> lists = candidateLists(segment, nameQuery, authorQuery, categoryIds);
+            List<Long> ids = new ArrayList<>(Math.max(limit, 0));
+            if (lists == null) {
+                return ids;
+            }
+            PostingList smallest = lists.get(0);
+            for (int i = smallest.indexAfter(afterId); i < smallest.size() && ids.size() < limit; i++) {
+                long id = smallest.get(i);
+                if (matches(segment, lists, id, nameQuery, authorQuery)) {
+                    ids.add(id);
+                }
+            }
+            return ids;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // 返回按长度升序的候选倒排表，null 表示必然无结果
+    private List<PostingList> candidateLists(Segment segment, String nameQuery, String authorQuery,
+                                             Collection<Long> categoryIds) {
+        List<PostingList> lists = new ArrayList<>();
+        if (nameQuery != null && !collectGrams(segment.nameGrams, nameQuery, lists)) {
+            return null;
+        }
+        if (authorQuery != null && !collectGrams(segment.authorGrams, authorQuery, lists)) {
+            return null;
+        }
+        if (categoryIds != null) {
+            PostingList union = unionCategories(segment, categoryIds);
+            if (union.size() == 0) {
+                return null;
+            }
+            lists.add(union);
+        }
+        if (lists.isEmpty()) {
+            lists.add(segment.allIds);
+        }
+        // 从最短的倒排表开始，逐个在其余倒排表中二分查找
+        lists.sort(Comparator.comparingInt(PostingList::size));
+        return lists;
+    }
+
+    private boolean matches(Segment segment, List<PostingList> lists, long id, String nameQuery, String authorQuery) {
+        if (!containedInAll(lists, id)) {
+            return false;
+        }
+        if (nameQuery == null && authorQuery == null) {
+            return true;
+        }
+        IndexedBook document = segment.documents.get(id);
+        return (nameQuery == null || document.name().contains(nameQuery))
+                && (authorQuery == null || document.author().contains(authorQuery));
+    }
+
+    private boolean collectGrams(Map<String, PostingList> grams, String query, List<PostingList> lists) {
+        for (String gram : queryGrams(query)) {
+            PostingList postings = grams.get(gram);
+            if (postings == null) {
+                return false;
+            }
+            lists.add(postings);
+        }
+        return true;
+    }
+
+    private PostingList unionCategories(Segment segment, Collection<Long> categoryIds) {
+        PostingList union = new PostingList();
+        List<Long> ids = new ArrayList<>();
+        for (Long categoryId : categoryIds) {
+            PostingList postings = segment.categoryPostings.get(categoryId);
+            if (postings != null) {
+                for (int i = 0; i < postings.size(); i++) {
+                    ids.add(postings.get(i));
+                }
+            }
+        }
+        ids.stream().sorted().distinct().forEach(union::add);
+        return union;
+    }
+
+    private boolean containedInAll(List<PostingList> lists, long id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // 文档按单字+双字切分，保证任意长度的查询都能命中
+    private static Set<String> documentGrams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        int[] codePoints = text.codePoints().toArray();
+        for (int i = 0; i < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 1));
+            if (i + 1 < codePoints.length) {
+                grams.add(new String(codePoints, i, 2));
+            }
+        }
+        return grams;
+    }
+
+    // 查询长度为1时用单字，否则只用双字
+    private Set<String> queryGrams(String text) {
+        int[] codePoints = text.codePoints().toArray();
+        Set<String> grams = new LinkedHashSet<>();
+        if (codePoints.length == 1) {
+            grams.add(text);
+            return grams;
+        }
+        for (int i = 0; i + 1 < codePoints.length; i++) {
+            grams.add(new String(codePoints, i, 2));
+        }
+        return grams;
+    }
+
+    private static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        return Normalizer.normalize(text, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private record IndexedBook(String name, String author, Long categoryId) {
+    }
+
+    private record Change(Long id, IndexedBook document) {
+    }
+
+    // 一份完整的索引数据，重建时整体替换
+    private static class Segment {
+        private final Map<Long, IndexedBook> documents = new HashMap<>();
+        private final Map<String, PostingList> nameGrams = new HashMap<>();
+        private final Map<String, PostingList> authorGrams = new HashMap<>();
+        private final Map<Long, PostingList> categoryPostings = new HashMap<>();
+        private final PostingList allIds = new PostingList();
+
+        // 新增或替换文档，document 为 null 时删除
+        void put(Long id, IndexedBook document) {
+            removeDocument(id);
+            if (document != null) {
+                addDocument(id, document);
+            }
+        }
+
+        private void addDocument(Long id, IndexedBook document) {
+            documents.put(id, document);
+            allIds.add(id);
+            for (String gram : documentGrams(document.name())) {
+                nameGrams.computeIfAbsent(gram, key -> new PostingList()).add(id);
+            }
+            for (String gram : documentGrams(document.author())) {
+                authorGrams.computeIfAbsent(gram, key -> new PostingList()).add(id);
+            }
+            if (document.categoryId() != null) {
+                categoryPostings.computeIfAbsent(document.categoryId(), key -> new PostingList()).add(id);
+            }
+        }
+
+        private void removeDocument(Long id) {
+            IndexedBook document = documents.remove(id);
+            if (document == null) {
+                return;
+            }
+            allIds.remove(id);
+            removeGrams(nameGrams, document.name(), id);
+            removeGrams(authorGrams, document.author(), id);
+            if (document.categoryId() != null) {
+                PostingList postings = categoryPostings.get(document.categoryId());
+                if (postings != null) {
+                    postings.remove(id);
+                }
+            }
+        }
+
+        private void removeGrams(Map<String, PostingList> grams, String text, Long id) {
+            for (String gram : documentGrams(text)) {
+                PostingList postings = grams.get(gram);
+                if (postings != null && postings.remove(id) && postings.size() == 0) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    @Getter
+    @RequiredArgsConstructor
+    public static class SearchResult {
+        static final SearchResult EMPTY = new SearchResult(List.of(), 0L);
+
+        private final List<Long> ids;
+        private final long total;
+    }
+
+    // 有序 long 数组实现的倒排表，ID 自增时追加为 O(1)
+    private static class PostingList {
+        private long[] ids = new long[4];
+        private int size = 0;
+
+        int size() {
+            return size;
+        }
+
+        long get(int index) {
+            return ids[index];
+        }
+
+        // 第一个大于 id 的位置
+        int indexAfter(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            return position >= 0 ? position + 1 : -position - 1;
+        }
+
+        boolean contains(long id) {
+            return Arrays.binarySearch(ids, 0, size, id) >= 0;
+        }
+
+        void add(long id) {
+            if (size > 0 && ids[size - 1] >= id) {
+                int position = Arrays.binarySearch(ids, 0, size, id);
+                if (position >= 0) {
+                    return;
+                }
+                insertAt(-position - 1, id);
+                return;
+            }
+            insertAt(size, id);
+        }
+
+        boolean remove(long id) {
+            int position = Arrays.binarySearch(ids, 0, size, id);
+            if (position < 0) {
+                return false;
+            }
+            System.arraycopy(ids, position + 1, ids, position, size - position - 1);
+            size--;
+            return true;
+        }
+
+        private void insertAt(int position, long id) {
+            if (size == ids.length) {
+                ids = Arrays.copyOf(ids, size * 2);
+            }
+            System.arraycopy(ids, position, ids, position + 1, size - position);
+            ids[position] = id;
+            size++;
+        }
+    }
+}
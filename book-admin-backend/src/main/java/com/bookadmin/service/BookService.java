@@ -1,32 +1,79 @@
 package com.bookadmin.service;
 
 import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.CategoryDTO;
+import com.bookadmin.dto.CursorPageResult;
+import com.bookadmin.dto.PageCursor;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.entity.Book;
 import com.bookadmin.entity.Category;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.export.TableWriter;
 import com.bookadmin.repository.BookRepository;
 import com.bookadmin.repository.CategoryRepository;
+import com.bookadmin.repository.FieldProjection;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.util.StringUtils;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("app.service")
 @RequiredArgsConstructor
 @Transactional
 public class BookService {
     
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+    
+    // fields= 可选字段，名称与 BookDTO 一致
+    private static final FieldProjection<Book> FIELDS = FieldProjection.of(Book.class)
+            .field("name")
+            .field("author")
+            .field("description")
+            .field("createdAt")
+            .field("publishAt")
+            .field("bookNo")
+            .field("cover")
+            .field("stock", "availableStock")
+            .field("stockStripes")
+            .field("category", "category.name")
+            .field("categoryId", "category.id")
+            .field("version");
+    
     private final BookRepository bookRepository;
     private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
+    private final BookSearchIndex bookSearchIndex;
+    private final BookStockService bookStockService;
+    private final LookupCache lookupCache;
+    private final ChangeCounters changeCounters;
+    private final CountCache countCache;
+    private final CirculationStats circulationStats;
+    private final EntityManager entityManager;
     
     public PageResult<BookDTO> getBooks(String name, String author, String category, 
-                                       Integer current, Integer pageSize, Boolean all) {
+                                       Integer current, Integer pageSize, Boolean all, TotalMode totalMode) {
         if (Boolean.TRUE.equals(all)) {
             List<Book> books = bookRepository.findAll();
             List<BookDTO> bookDTOs = books.stream()
@@ -35,7 +82,21 @@ public class BookService {
             return new PageResult<>(bookDTOs, (long) books.size(), current, pageSize, 1);
         }
         
+        // 索引给出的总数本身精确且廉价，total 参数只作用于数据库回退路径
+        if (bookSearchIndex.isReady()) {
+            return searchBooks(name, author, category, current, pageSize);
+        }
+        
         Pageable pageable = PageRequest.of(current - 1, pageSize);
+        if (totalMode != TotalMode.EXACT) {
+            Slice<Book> bookSlice = bookRepository.findSliceByConditions(name, author, category, pageable);
+            Long total = totalMode == TotalMode.APPROX
+                    ? countCache.get(CountCache.key("books", name, author, category),
+                            () -> bookRepository.countByConditions(name, author, category))
+                    : null;
+            return PageResult.of(bookSlice, total, current, pageSize, this::convertToDTO);
+        }
+        
         Page<Book> bookPage = bookRepository.findByConditions(name, author, category, pageable);
         
         List<BookDTO> bookDTOs = bookPage.getContent().stream()
@@ -51,21 +112,189 @@ public class BookService {
         );
     }
     
+    // 走内存倒排索引，只按页内ID回表
+    private PageResult<BookDTO> searchBooks(String name, String author, String category,
+                                           Integer current, Integer pageSize) {
+        BookSearchIndex.SearchResult result = bookSearchIndex.search(
+                name, author, matchingCategoryIds(category), (current - 1) * pageSize, pageSize);
+        
+        List<BookDTO> bookDTOs = findAllInOrder(result.getIds()).stream()
+                .map(this::convertToDTO)
+                .collect(Collectors.toList());
+        
+        return new PageResult<>(
+                bookDTOs,
+                result.getTotal(),
+                current,
+                pageSize,
+                (int) ((result.getTotal() + pageSize - 1) / pageSize)
+        );
+    }
+    
+    // 只查询 fields 指定的列，过滤、分页与 getBooks 相同
+    public PageResult<Map<String, Object>> getBookFields(String fields, String name, String author, String category,
+                                                         Integer current, Integer pageSize, Boolean all,
+                                                         TotalMode totalMode) {
+        List<String> names = FIELDS.parse(fields);
+        if (Boolean.TRUE.equals(all)) {
+            List<Map<String, Object>> rows = FIELDS.find(entityManager, names, null, 0, 0);
+            return new PageResult<>(rows, (long) rows.size(), current, pageSize, 1);
+        }
+        
+        if (bookSearchIndex.isReady()) {
+            BookSearchIndex.SearchResult result = bookSearchIndex.search(
+                    name, author, matchingCategoryIds(category), (current - 1) * pageSize, pageSize);
+            List<Map<String, Object>> rows = FIELDS.findAllById(entityManager, names, result.getIds());
+            return new PageResult<>(rows, result.getTotal(), current, pageSize,
+                    (int) ((result.getTotal() + pageSize - 1) / pageSize));
+        }
+        
+        Long total = switch (totalMode) {
+            case EXACT -> bookRepository.countByConditions(name, author, category);
+            case APPROX -> countCache.get(CountCache.key("books", name, author, category),
+                    () -> bookRepository.countByConditions(name, author, category));
+            case NONE -> null;
+        };
+        List<Map<String, Object>> rows = FIELDS.find(entityManager, names, conditions(name, author, category),
+                (current - 1) * pageSize, pageSize + 1);
+        return PageResult.of(rows, total, current, pageSize);
+    }
+    
+    // 与 BookRepository.findByConditions 相同的过滤条件
+    private static Specification<Book> conditions(String name, String author, String category) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (name != null) {
+                predicates.add(cb.like(root.get("name"), "%" + name + "%"));
+            }
+            if (author != null) {
+                predicates.add(cb.like(root.get("author"), "%" + author + "%"));
+            }
+            if (category != null) {
+                predicates.add(cb.like(FieldProjection.path(root, "category.name"), "%" + category + "%"));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    public CursorPageResult<BookDTO> getBooksAfter(String name, String author, String category,
+                                                   String after, Integer pageSize) {
+        PageCursor cursor = PageCursor.decode(after);
+        long afterId = cursor != null ? cursor.getId() : 0L;
+        
+        if (bookSearchIndex.isReady()) {
+            List<Long> ids = bookSearchIndex.searchAfter(
+                    name, author, matchingCategoryIds(category), afterId, pageSize + 1);
+            // 是否有下一页和下一页游标按索引返回的ID判断：其间被删除的图书不在查询结果中，不能让本页因此提前结束
+            boolean hasNext = ids.size() > pageSize;
+            List<Long> pageIds = hasNext ? ids.subList(0, pageSize) : ids;
+            List<BookDTO> data = findAllInOrder(pageIds).stream()
+                    .map(this::convertToDTO)
+                    .collect(Collectors.toList());
+            String nextCursor = hasNext && !pageIds.isEmpty()
+                    ? PageCursor.of(pageIds.get(pageIds.size() - 1)).encode()
+                    : null;
+            return new CursorPageResult<>(data, pageSize, hasNext, nextCursor);
+        }
+        
+        List<Book> books = bookRepository.findByConditionsAfter(
+                name, author, category, afterId, PageRequest.of(0, pageSize + 1));
+        return CursorPageResult.of(books, pageSize, book -> PageCursor.of(book.getId()), this::convertToDTO);
+    }
+    
+    private List<Long> matchingCategoryIds(String category) {
+        if (!StringUtils.hasText(category)) {
+            return null;
+        }
+        return categoryTree.findIdsByNameContaining(category);
+    }
+    
+    private List<Book> findAllInOrder(List<Long> ids) {
+        Map<Long, Book> books = bookRepository.findAllById(ids).stream()
+                .collect(Collectors.toMap(Book::getId, Function.identity()));
+        return ids.stream()
+                .map(books::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+    }
+    
+    // 逐条转换并交给调用方写出，转换后立即从持久化上下文中移除，内存占用与总行数无关
+    @Transactional(readOnly = true)
+    public void streamBooks(Consumer<BookDTO> consumer) {
+        try (Stream<Book> books = bookRepository.streamAll()) {
+            books.forEach(book -> {
+                consumer.accept(convertToDTO(book));
+                entityManager.detach(book);
+            });
+        }
+    }
+    
+    @Transactional(readOnly = true)
+    public void exportBooks(String name, String author, String category, TableWriter writer) {
+        writer.writeRow("名称", "作者", "分类", "描述", "库存", "创建时间");
+        int[] count = {0};
+        try (Stream<Book> books = bookRepository.streamByConditions(name, author, category)) {
+            books.forEach(book -> {
+                writer.writeRow(
+                        book.getName(),
+                        book.getAuthor(),
+                        book.getCategory() != null ? book.getCategory().getName() : null,
+                        book.getDescription(),
+                        book.getAvailableStock(),
+                        book.getCreatedAt());
+                // 定期清空持久化上下文，保持内存占用恒定
+                if (++count[0] % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+    
     public BookDTO getBookById(Long id) {
-        Book book = bookRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Book not found"));
-        return convertToDTO(book);
+        return findBookById(id).orElseThrow(() -> new RuntimeException("Book not found"));
+    }
+    
+    public Optional<BookDTO> findBookById(Long id) {
+        return Optional.ofNullable(lookupCache.getBook(id,
+                key -> bookRepository.findById(key).map(this::convertToDTO).orElse(null)));
+    }
+    
+    // 修改库存的事务中使用：未命中时读到的是本事务未提交的库存，不能放入缓存，
+    // 否则在事务结束失效之前（组提交时是整批结束前）其他请求会读到它，事务回滚后也一样
+    public Optional<BookDTO> findBookByIdUncached(Long id) {
+        return Optional.ofNullable(lookupCache.peekBook(id,
+                key -> bookRepository.findById(key).map(this::convertToDTO).orElse(null)));
+    }
+    
+    public BookDTO getBookByBookNo(String bookNo) {
+        BookDTO book = lookupCache.getBookByBookNo(bookNo,
+                key -> bookRepository.findByBookNo(key).map(this::convertToDTO).orElse(null));
+        if (book == null) {
+            throw new RuntimeException("Book not found");
+        }
+        return book;
     }
     
     public BookDTO createBook(BookDTO bookDTO) {
+        changeCounters.touch(TrackedTable.BOOKS);
         Book book = convertToEntity(bookDTO);
         Book savedBook = bookRepository.save(book);
+        bookSearchIndex.index(savedBook);
         return convertToDTO(savedBook);
     }
     
     public BookDTO updateBook(Long id, BookDTO bookDTO) {
+        changeCounters.touch(TrackedTable.BOOKS);
         Book existingBook = bookRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Book not found"));
+        // 带版本号提交时必须与当前版本一致，否则说明编辑期间已被他人修改
+        if (bookDTO.getVersion() != null && !bookDTO.getVersion().equals(existingBook.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Book has been modified");
+        }
+        if (bookDTO.getStock() == null || bookDTO.getStock() < 0) {
+            throw new RuntimeException("Stock must not be negative");
+        }
+        lookupCache.evictBook(id, existingBook.getBookNo(), bookDTO.getBookNo());
         
         existingBook.setName(bookDTO.getName());
         existingBook.setAuthor(bookDTO.getAuthor());
@@ -73,20 +302,32 @@ public class BookService {
         existingBook.setPublishAt(bookDTO.getPublishAt());
         existingBook.setBookNo(bookDTO.getBookNo());
         existingBook.setCover(bookDTO.getCover());
-        existingBook.setStock(bookDTO.getStock());
+        bookStockService.setStock(existingBook, bookDTO.getStock());
         
         if (bookDTO.getCategoryId() != null) {
-            Category category = categoryRepository.findById(bookDTO.getCategoryId())
-                    .orElseThrow(() -> new RuntimeException("Category not found"));
-            existingBook.setCategory(category);
+            Long oldCategoryId = existingBook.getCategory() != null ? existingBook.getCategory().getId() : null;
+            if (!bookDTO.getCategoryId().equals(oldCategoryId)) {
+                circulationStats.moveBook(id, oldCategoryId, bookDTO.getCategoryId());
+            }
+            existingBook.setCategory(findCategory(bookDTO.getCategoryId()));
         }
         
-        Book savedBook = bookRepository.save(existingBook);
+        // 立即刷新，返回的版本号才是更新后的值
+        Book savedBook = bookRepository.saveAndFlush(existingBook);
+        bookSearchIndex.index(savedBook);
         return convertToDTO(savedBook);
     }
     
+    public BookDTO stripeStock(Long id, Integer stripes) {
+        return convertToDTO(bookStockService.stripe(id, stripes));
+    }
+    
     public void deleteBook(Long id) {
+        changeCounters.touch(TrackedTable.BOOKS);
+        lookupCache.evictBook(id);
+        bookStockService.remove(id);
         bookRepository.deleteById(id);
+        bookSearchIndex.remove(id);
     }
     
     private BookDTO convertToDTO(Book book) {
@@ -99,9 +340,13 @@ public class BookService {
         dto.setPublishAt(book.getPublishAt());
         dto.setBookNo(book.getBookNo());
         dto.setCover(book.getCover());
-        dto.setStock(book.getStock());
+        dto.setStock(book.getAvailableStock());
+        dto.setStockStripes(book.getStockStripes());
+        dto.setVersion(book.getVersion());
         if (book.getCategory() != null) {
-            dto.setCategory(book.getCategory().getName());
+            // 分类名优先取分类树快照，新建/编辑时分类只是未初始化的引用
+            CategoryDTO category = categoryTree.getById(book.getCategory().getId());
+            dto.setCategory(category != null ? category.getName() : book.getCategory().getName());
             dto.setCategoryId(book.getCategory().getId());
         }
         return dto;
@@ -116,15 +361,22 @@ public class BookService {
         book.setBookNo(dto.getBookNo());
         book.setCover(dto.getCover());
         book.setStock(dto.getStock());
+        book.setAvailableStock(dto.getStock());
         
         if (dto.getCategoryId() != null) {
-            Category category = categoryRepository.findById(dto.getCategoryId())
-                    .orElseThrow(() -> new RuntimeException("Category not found"));
-            book.setCategory(category);
+            book.setCategory(findCategory(dto.getCategoryId()));
         }
         
         return book;
     }
+    
+    // 分类是否存在从分类树快照判断，只关联引用，不查询分类表
+    private Category findCategory(Long categoryId) {
+        if (categoryTree.getById(categoryId) == null) {
+            throw new RuntimeException("Category not found");
+        }
+        return categoryRepository.getReferenceById(categoryId);
+    }
 }
 
 
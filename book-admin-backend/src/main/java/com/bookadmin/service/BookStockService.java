@@ -0,0 +1,210 @@
+package com.bookadmin.service;
+
+import com.bookadmin.entity.Book;
+import com.bookadmin.entity.BookStockSlot;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.BookStockSlotRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * 图书库存的唯一写入口。热门图书可以开启分片库存：库存拆到 N 个分片行上，
+ * 借阅时从随机分片开始找一个有库存的分片扣减，并发借阅不再争用 books 表的同一行锁。
+ */
+@Service
+@Timed("app.service")
+@RequiredArgsConstructor
+@Transactional
+public class BookStockService {
+
+    private static final int MAX_STRIPES = 64;
+
+    private final BookRepository bookRepository;
+    private final BookStockSlotRepository bookStockSlotRepository;
+    private final LookupCache lookupCache;
+    private final ChangeCounters changeCounters;
+
+    // 已分片的图书及分片数，避免每次借阅都查询图书
+    private final ConcurrentHashMap<Long, Integer> stripedBooks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    void loadStripedBooks() {
+        for (Book book : bookRepository.findAllById(bookStockSlotRepository.findStripedBookIds())) {
+            if (book.getStockStripes() != null) {
+                stripedBooks.put(book.getId(), book.getStockStripes());
+            }
+        }
+    }
+
+    public Set<Long> getStripedBookIds() {
+        return stripedBooks.keySet();
+    }
+
+    // 扣减库存，返回 false 表示图书不存在或库存不足
+    public boolean decrease(Long bookId, int quantity) {
+        changeCounters.touch(TrackedTable.BOOKS);
+        lookupCache.evictBook(bookId);
+        Integer stripes = stripedBooks.get(bookId);
+        if (stripes == null) {
+            if (bookRepository.decreaseStock(bookId, quantity) > 0) {
+                return true;
+            }
+        } else {
+            int start = ThreadLocalRandom.current().nextInt(stripes);
+            for (int i = 0; i < stripes; i++) {
+                if (bookStockSlotRepository.decreaseStock(bookId, (start + i) % stripes, quantity) > 0) {
+                    return true;
+                }
+            }
+            // 分片行都还在就是库存不足，单个分片都不够时锁住全部分片合并扣减（撤销大批量入库时才会发生）。
+            // 失败的条件 UPDATE 可能仍锁着分片行，这时不能再去锁图书行，否则与 stripe（先图书行后分片）互相等待
+            if (bookStockSlotRepository.countByBookId(bookId) == stripes) {
+                return quantity > 1 && drain(bookId, quantity);
+            }
+        }
+        // 库存不足，或分片状态刚被 stripe 改变（内存中的分片数在其提交后才更新）：锁住图书行按当前状态重试，
+        // 分片时锁住全部分片合并扣减
+        Integer current = lockStripes(bookId);
+        if (current == null) {
+            return false;
+        }
+        return current == 0 ? bookRepository.decreaseStock(bookId, quantity) > 0 : drain(bookId, quantity);
+    }
+
+    // 增加库存，返回 false 表示图书不存在
+    public boolean increase(Long bookId, int quantity) {
+        changeCounters.touch(TrackedTable.BOOKS);
+        lookupCache.evictBook(bookId);
+        Integer stripes = stripedBooks.get(bookId);
+        if (stripes == null ? bookRepository.increaseStock(bookId, quantity) > 0
+                : bookStockSlotRepository.increaseStock(bookId, ThreadLocalRandom.current().nextInt(stripes), quantity) > 0) {
+            return true;
+        }
+        // 0 行：图书不存在，或分片状态刚被改变（分片行已删除、books.stock 已不再使用），锁住图书行按当前状态重试
+        Integer current = lockStripes(bookId);
+        if (current == null) {
+            return false;
+        }
+        return current == 0
+                ? bookRepository.increaseStock(bookId, quantity) > 0
+                : bookStockSlotRepository.increaseStock(bookId, ThreadLocalRandom.current().nextInt(current), quantity) > 0;
+    }
+
+    // 直接设置库存（编辑图书时），分片模式下重新均分到各分片
+    public void setStock(Book book, int stock) {
+        changeCounters.touch(TrackedTable.BOOKS);
+        if (book.getStockStripes() == null) {
+            book.setStock(stock);
+        } else {
+            bookStockSlotRepository.findByBookIdForUpdate(book.getId());
+            bookStockSlotRepository.deleteByBookId(book.getId());
+            createSlots(book.getId(), book.getStockStripes(), stock);
+        }
+        book.setAvailableStock(stock);
+        lookupCache.evictBook(book.getId());
+    }
+
+    // 开启或调整分片数，stripes 为空或小于2时恢复为单行库存
+    public Book stripe(Long bookId, Integer stripes) {
+        changeCounters.touch(TrackedTable.BOOKS);
+        Book book = bookRepository.findByIdForUpdate(bookId)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+        if (stripes != null && (stripes < 0 || stripes > MAX_STRIPES)) {
+            throw new RuntimeException("Stripes must be between 0 and " + MAX_STRIPES);
+        }
+
+        int total = book.getStock();
+        if (book.getStockStripes() != null) {
+            total = bookStockSlotRepository.findByBookIdForUpdate(bookId).stream()
+                    .mapToInt(BookStockSlot::getStock)
+                    .sum();
+            bookStockSlotRepository.deleteByBookId(bookId);
+        }
+
+        if (stripes == null || stripes < 2) {
+            book.setStock(total);
+            book.setStockStripes(null);
+            afterCommit(() -> stripedBooks.remove(bookId));
+        } else {
+            createSlots(bookId, stripes, total);
+            book.setStock(0);
+            book.setStockStripes(stripes);
+            afterCommit(() -> stripedBooks.put(bookId, stripes));
+        }
+        book.setAvailableStock(total);
+        lookupCache.evictBook(bookId);
+        return bookRepository.save(book);
+    }
+
+    // 删除图书前清理分片行
+    public void remove(Long bookId) {
+        changeCounters.touch(TrackedTable.BOOKS);
+        if (stripedBooks.containsKey(bookId)) {
+            bookStockSlotRepository.deleteByBookId(bookId);
+            afterCommit(() -> stripedBooks.remove(bookId));
+        }
+    }
+
+    // 持有图书行锁时 stripe 无法并发执行，读到的分片数就是实际的库存位置；顺带校正内存中的分片数。图书不存在时返回 null
+    private Integer lockStripes(Long bookId) {
+        Integer stripes = bookRepository.findStockStripesForUpdate(bookId).orElse(null);
+        if (stripes != null) {
+            if (stripes == 0) {
+                stripedBooks.remove(bookId);
+            } else {
+                stripedBooks.put(bookId, stripes);
+            }
+        }
+        return stripes;
+    }
+
+    private boolean drain(Long bookId, int quantity) {
+        List<BookStockSlot> slots = bookStockSlotRepository.findByBookIdForUpdate(bookId);
+        if (slots.stream().mapToInt(BookStockSlot::getStock).sum() < quantity) {
+            return false;
+        }
+        int remaining = quantity;
+        for (BookStockSlot slot : slots) {
+            int taken = Math.min(slot.getStock(), remaining);
+            slot.setStock(slot.getStock() - taken);
+            remaining -= taken;
+        }
+        bookStockSlotRepository.saveAll(slots);
+        return true;
+    }
+
+    private void createSlots(Long bookId, int stripes, int total) {
+        List<BookStockSlot> slots = new ArrayList<>(stripes);
+        for (int i = 0; i < stripes; i++) {
+            // 余数分给前面的分片
+            int stock = total / stripes + (i < total % stripes ? 1 : 0);
+            slots.add(new BookStockSlot(null, bookId, i, stock));
+        }
+        bookStockSlotRepository.saveAll(slots);
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -2,38 +2,91 @@ package com.bookadmin.service;
 
 import com.bookadmin.dto.BookDTO;
 import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.CursorPageResult;
+import com.bookadmin.dto.PageCursor;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.dto.UserDTO;
 import com.bookadmin.entity.Book;
 import com.bookadmin.entity.Borrow;
 import com.bookadmin.entity.User;
 import com.bookadmin.enums.BorrowStatus;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.export.TableWriter;
 import com.bookadmin.repository.BookRepository;
 import com.bookadmin.repository.BorrowRepository;
+import com.bookadmin.repository.FieldProjection;
 import com.bookadmin.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("app.service")
 @RequiredArgsConstructor
 @Transactional
 public class BorrowService {
     
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+    
+    // fields= 可选字段，图书、读者只开放列表展示用到的属性
+    private static final FieldProjection<Borrow> FIELDS = FieldProjection.of(Borrow.class)
+            .field("status")
+            .field("borrowDate")
+            .field("returnDate")
+            .field("dueDate")
+            .field("version")
+            .field("book.id")
+            .field("book.name")
+            .field("book.author")
+            .field("book.bookNo")
+            .field("book.cover")
+            .field("book.category", "book.category.name")
+            .field("user.id")
+            .field("user.name")
+            .field("user.nickName");
+    
     private final BorrowRepository borrowRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final BookStockService bookStockService;
+    private final BookService bookService;
+    private final UserService userService;
+    private final ChangeCounters changeCounters;
+    private final CountCache countCache;
+    private final OverdueBorrows overdueBorrows;
+    private final CirculationStats circulationStats;
+    private final CirculationRollup circulationRollup;
+    private final EntityManager entityManager;
     
     public PageResult<BorrowDTO> getBorrows(String bookName, String userName, String author, 
-                                           BorrowStatus status, Integer current, Integer pageSize) {
+                                           BorrowStatus status, Integer current, Integer pageSize,
+                                           TotalMode totalMode) {
         Pageable pageable = PageRequest.of(current - 1, pageSize);
+        if (totalMode != TotalMode.EXACT) {
+            Slice<Borrow> borrowSlice = borrowRepository.findSliceByConditions(bookName, userName, author, status, pageable);
+            Long total = totalMode == TotalMode.APPROX
+                    ? countCache.get(CountCache.key("borrows", bookName, userName, author, status),
+                            () -> borrowRepository.countByConditions(bookName, userName, author, status))
+                    : null;
+            return PageResult.of(borrowSlice, total, current, pageSize, this::convertToDTO);
+        }
+        
         Page<Borrow> borrowPage = borrowRepository.findByConditions(bookName, userName, author, status, pageable);
         
         List<BorrowDTO> borrowDTOs = borrowPage.getContent().stream()
@@ -49,6 +102,78 @@ public class BorrowService {
         );
     }
     
+    // 只查询 fields 指定的列，过滤、分页与 getBorrows 相同
+    public PageResult<Map<String, Object>> getBorrowFields(String fields, String bookName, String userName,
+                                                           String author, BorrowStatus status,
+                                                           Integer current, Integer pageSize, TotalMode totalMode) {
+        List<String> names = FIELDS.parse(fields);
+        Long total = switch (totalMode) {
+            case EXACT -> borrowRepository.countByConditions(bookName, userName, author, status);
+            case APPROX -> countCache.get(CountCache.key("borrows", bookName, userName, author, status),
+                    () -> borrowRepository.countByConditions(bookName, userName, author, status));
+            case NONE -> null;
+        };
+        List<Map<String, Object>> rows = FIELDS.find(entityManager, names,
+                conditions(bookName, userName, author, status), (current - 1) * pageSize, pageSize + 1);
+        return PageResult.of(rows, total, current, pageSize);
+    }
+    
+    // 与 BorrowRepository.findByConditions 相同的过滤条件
+    private static Specification<Borrow> conditions(String bookName, String userName, String author,
+                                                    BorrowStatus status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (bookName != null) {
+                predicates.add(cb.like(FieldProjection.path(root, "book.name"), "%" + bookName + "%"));
+            }
+            if (userName != null) {
+                predicates.add(cb.like(FieldProjection.path(root, "user.name"), "%" + userName + "%"));
+            }
+            if (author != null) {
+                predicates.add(cb.like(FieldProjection.path(root, "book.author"), "%" + author + "%"));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    public CursorPageResult<BorrowDTO> getBorrowsAfter(String bookName, String userName, String author,
+                                                       BorrowStatus status, String after, Integer pageSize) {
+        PageCursor cursor = PageCursor.decode(after);
+        List<Borrow> borrows = borrowRepository.findByConditionsAfter(
+                bookName, userName, author, status,
+                cursor != null ? cursor.getSortKeyAsDateTime() : null,
+                cursor != null ? cursor.getId() : null,
+                PageRequest.of(0, pageSize + 1));
+        
+        return CursorPageResult.of(borrows, pageSize,
+                borrow -> PageCursor.of(borrow.getBorrowDate(), borrow.getId()), this::convertToDTO);
+    }
+    
+    @Transactional(readOnly = true)
+    public void exportBorrows(String bookName, String userName, String author, BorrowStatus status,
+                              TableWriter writer) {
+        writer.writeRow("书籍名称", "书籍作者", "借阅人", "状态", "借阅时间", "归还时间");
+        int[] count = {0};
+        try (Stream<Borrow> borrows = borrowRepository.streamByConditions(bookName, userName, author, status)) {
+            borrows.forEach(borrow -> {
+                writer.writeRow(
+                        borrow.getBook().getName(),
+                        borrow.getBook().getAuthor(),
+                        borrow.getUser().getNickName(),
+                        borrow.getStatus() == BorrowStatus.ON ? "借出" : "已还",
+                        borrow.getBorrowDate(),
+                        borrow.getReturnDate());
+                // 定期清空持久化上下文，保持内存占用恒定
+                if (++count[0] % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+    
     public BorrowDTO getBorrowById(Long id) {
         Borrow borrow = borrowRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Borrow not found"));
@@ -56,70 +181,99 @@ public class BorrowService {
     }
     
     public BorrowDTO createBorrow(BorrowDTO borrowDTO) {
-        Book book = bookRepository.findById(borrowDTO.getBook().getId())
-                .orElseThrow(() -> new RuntimeException("Book not found"));
-        
-        User user = userRepository.findById(borrowDTO.getUser().getId())
-                .orElseThrow(() -> new RuntimeException("User not found"));
+        return tryCreateBorrow(borrowDTO).orElseThrow();
+    }
+    
+    // 失败（读者不存在、库存不足）在写入前判断，作为结果返回而不抛出：
+    // 组提交时异常穿过事务代理会把整批事务标记为只能回滚
+    public WriteResult tryCreateBorrow(BorrowDTO borrowDTO) {
+        changeCounters.touch(TrackedTable.BORROWS);
+        Long bookId = borrowDTO.getBook().getId();
+        // 读者从近端缓存取，只关联引用，不查询用户表
+        UserDTO user = userService.findUserById(borrowDTO.getUser().getId()).orElse(null);
+        if (user == null) {
+            return WriteResult.failed("User not found");
+        }
         
-        if (book.getStock() <= 0) {
-            throw new RuntimeException("Book is out of stock");
+        // 减少库存：条件 UPDATE 保证不会超借，分片库存的图书只锁其中一个分片
+        if (!bookStockService.decrease(bookId, 1)) {
+            return WriteResult.failed(bookRepository.existsById(bookId)
+                    ? "Book is out of stock"
+                    : "Book not found");
         }
         
         Borrow borrow = new Borrow();
-        borrow.setBook(book);
-        borrow.setUser(user);
+        borrow.setBook(bookRepository.getReferenceById(bookId));
+        borrow.setUser(userRepository.getReferenceById(user.getId()));
         borrow.setStatus(BorrowStatus.ON);
-        
-        // 减少库存
-        book.setStock(book.getStock() - 1);
-        bookRepository.save(book);
+        borrow.setDueDate(overdueBorrows.dueDate(LocalDateTime.now()));
         
         Borrow savedBorrow = borrowRepository.save(borrow);
-        return convertToDTO(savedBorrow);
+        BookDTO book = bookService.findBookByIdUncached(bookId)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+        circulationStats.borrowed(bookId, book.getCategoryId(), user.getId());
+        circulationRollup.borrowed(savedBorrow.getBorrowDate());
+        return WriteResult.ok(convertToDTO(savedBorrow, book, user));
     }
     
     public BorrowDTO returnBook(Long id) {
-        Borrow borrow = borrowRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Borrow not found"));
-        
-        if (borrow.getStatus() == BorrowStatus.OFF) {
-            throw new RuntimeException("Book has already been returned");
+        return tryReturnBook(id).orElseThrow();
+    }
+    
+    // 与 tryCreateBorrow 相同，失败作为结果返回
+    public WriteResult tryReturnBook(Long id) {
+        changeCounters.touch(TrackedTable.BORROWS);
+        Long bookId = borrowRepository.findBookIdById(id).orElse(null);
+        if (bookId == null) {
+            return WriteResult.failed("Borrow not found");
         }
         
-        borrow.setStatus(BorrowStatus.OFF);
-        borrow.setReturnDate(LocalDateTime.now());
+        LocalDateTime returnDate = LocalDateTime.now();
+        if (borrowRepository.markReturned(id, returnDate) == 0) {
+            return WriteResult.failed("Book has already been returned");
+        }
+        overdueBorrows.remove(id);
         
-        // 增加库存
-        Book book = borrow.getBook();
-        book.setStock(book.getStock() + 1);
-        bookRepository.save(book);
+        // 增加库存：已标记归还，失败时抛出让事务回滚，不能留下已归还却没回到库存的借阅
+        if (!bookStockService.increase(bookId, 1)) {
+            throw new RuntimeException("Book not found");
+        }
         
-        Borrow savedBorrow = borrowRepository.save(borrow);
-        return convertToDTO(savedBorrow);
+        Borrow returnedBorrow = borrowRepository.findById(id)
+                .orElseThrow(() -> new RuntimeException("Borrow not found"));
+        circulationStats.returned(bookId, categoryIdOf(bookId), returnedBorrow.getUser().getId());
+        circulationRollup.returned(returnDate);
+        return WriteResult.ok(convertToDTO(returnedBorrow));
     }
     
     public void deleteBorrow(Long id) {
+        changeCounters.touch(TrackedTable.BORROWS);
+        // 统计需要读者和借还日期，读出借阅本身（图书、读者不加载）
         Borrow borrow = borrowRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Borrow not found"));
+        Long bookId = borrow.getBook().getId();
+        Long userId = borrow.getUser().getId();
         
         // 如果借阅状态是ON，需要恢复库存
-        if (borrow.getStatus() == BorrowStatus.ON) {
-            Book book = borrow.getBook();
-            book.setStock(book.getStock() + 1);
-            bookRepository.save(book);
+        if (borrowRepository.deleteByIdAndStatus(id, BorrowStatus.ON) == 1) {
+            if (!bookStockService.increase(bookId, 1)) {
+                throw new RuntimeException("Book not found");
+            }
+            overdueBorrows.remove(id);
+            circulationStats.deleted(bookId, categoryIdOf(bookId), userId, true);
+            circulationRollup.borrowDeleted(borrow.getBorrowDate(), null);
+        } else if (borrowRepository.deleteByIdAndStatus(id, BorrowStatus.OFF) == 1) {
+            circulationStats.deleted(bookId, categoryIdOf(bookId), userId, false);
+            circulationRollup.borrowDeleted(borrow.getBorrowDate(), borrow.getReturnDate());
         }
-        
-        borrowRepository.deleteById(id);
+    }
+    
+    // 流通统计按分类汇总，分类取自图书缓存；在库存变更之后调用，未命中时不放入缓存
+    private Long categoryIdOf(Long bookId) {
+        return bookService.findBookByIdUncached(bookId).map(BookDTO::getCategoryId).orElse(null);
     }
     
     private BorrowDTO convertToDTO(Borrow borrow) {
-        BorrowDTO dto = new BorrowDTO();
-        dto.setId(borrow.getId());
-        dto.setStatus(borrow.getStatus());
-        dto.setBorrowDate(borrow.getBorrowDate());
-        dto.setReturnDate(borrow.getReturnDate());
-        
         // 转换Book
         Book book = borrow.getBook();
         BookDTO bookDTO = new BookDTO();
@@ -131,12 +285,13 @@ public class BorrowService {
         bookDTO.setPublishAt(book.getPublishAt());
         bookDTO.setBookNo(book.getBookNo());
         bookDTO.setCover(book.getCover());
-        bookDTO.setStock(book.getStock());
+        bookDTO.setStock(book.getAvailableStock());
+        bookDTO.setStockStripes(book.getStockStripes());
+        bookDTO.setVersion(book.getVersion());
         if (book.getCategory() != null) {
             bookDTO.setCategory(book.getCategory().getName());
             bookDTO.setCategoryId(book.getCategory().getId());
         }
-        dto.setBook(bookDTO);
         
         // 转换User
         User user = borrow.getUser();
@@ -148,10 +303,42 @@ public class BorrowService {
         userDTO.setStatus(user.getStatus());
         userDTO.setSex(user.getSex());
         userDTO.setCreatedAt(user.getCreatedAt());
-        dto.setUser(userDTO);
+        userDTO.setVersion(user.getVersion());
         
+        return convertToDTO(borrow, bookDTO, userDTO);
+    }
+    
+    private BorrowDTO convertToDTO(Borrow borrow, BookDTO book, UserDTO user) {
+        BorrowDTO dto = new BorrowDTO();
+        dto.setId(borrow.getId());
+        dto.setStatus(borrow.getStatus());
+        dto.setBorrowDate(borrow.getBorrowDate());
+        dto.setReturnDate(borrow.getReturnDate());
+        dto.setDueDate(borrow.getDueDate());
+        dto.setVersion(borrow.getVersion());
+        dto.setBook(book);
+        dto.setUser(user);
         return dto;
     }
+    
+    // 借阅/归还的结果：成功时 borrow 不为空，失败时 error 为原因
+    public record WriteResult(BorrowDTO borrow, String error) {
+        
+        static WriteResult ok(BorrowDTO borrow) {
+            return new WriteResult(borrow, null);
+        }
+        
+        static WriteResult failed(String error) {
+            return new WriteResult(null, error);
+        }
+        
+        public BorrowDTO orElseThrow() {
+            if (error != null) {
+                throw new RuntimeException(error);
+            }
+            return borrow;
+        }
+    }
 }
 
 
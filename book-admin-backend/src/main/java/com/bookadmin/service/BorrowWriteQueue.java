@@ -0,0 +1,155 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BorrowDTO;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * 借阅/归还的组提交。开启 app.borrow.group-commit.enabled 后，命令进入有界队列，由一个写线程成批取出，
+ * 整批在一个事务里执行、只提交一次，提交延迟（MySQL 的 fsync）由整批分摊。
+ * 库存不足等单条失败在写入前判断（BorrowService.tryCreateBorrow/tryReturnBook），该命令不做任何写入，不影响同批其他命令；
+ * 调用方拿到的 future 在整批提交之后才完成，提交失败时整批都以异常完成。
+ * 未开启时直接同步调用 BorrowService，行为与原来一致。
+ */
+@Slf4j
+@Component
+public class BorrowWriteQueue implements MeterBinder {
+
+    private static final long POLL_MILLIS = 100;
+
+    private final BorrowService borrowService;
+    private final boolean enabled;
+    private final int maxBatchSize;
+    private final BlockingQueue<Command> queue;
+    private final TransactionTemplate transactionTemplate;
+    private final Thread writer;
+
+    private volatile boolean running;
+    private DistributionSummary batchSizes;
+
+    public BorrowWriteQueue(BorrowService borrowService,
+                            PlatformTransactionManager transactionManager,
+                            @Value("${app.borrow.group-commit.enabled:false}") boolean enabled,
+                            @Value("${app.borrow.group-commit.queue-capacity:4096}") int queueCapacity,
+                            @Value("${app.borrow.group-commit.max-batch-size:256}") int maxBatchSize) {
+        this.borrowService = borrowService;
+        this.enabled = enabled;
+        this.maxBatchSize = maxBatchSize;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.writer = new Thread(this::run, "borrow-writer");
+        this.writer.setDaemon(true);
+        if (enabled) {
+            running = true;
+            writer.start();
+            log.info("Borrow group commit enabled: queue-capacity={}, max-batch-size={}", queueCapacity, maxBatchSize);
+        }
+    }
+
+    public CompletableFuture<BorrowDTO> createBorrow(BorrowDTO borrowDTO) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(borrowService.createBorrow(borrowDTO));
+        }
+        return submit(() -> borrowService.tryCreateBorrow(borrowDTO));
+    }
+
+    public CompletableFuture<BorrowDTO> returnBook(Long id) {
+        if (!enabled) {
+            return CompletableFuture.completedFuture(borrowService.returnBook(id));
+        }
+        return submit(() -> borrowService.tryReturnBook(id));
+    }
+
+    private CompletableFuture<BorrowDTO> submit(Supplier<BorrowService.WriteResult> action) {
+        Command command = new Command(action, new CompletableFuture<>());
+        // 队列满时直接拒绝，不让请求线程无限堆积
+        if (!running || !queue.offer(command)) {
+            command.future.completeExceptionally(new RuntimeException("Borrow queue is full"));
+        }
+        return command.future;
+    }
+
+    private void run() {
+        List<Command> batch = new ArrayList<>(maxBatchSize);
+        // 停止后把队列里剩下的命令处理完再退出
+        while (running || !queue.isEmpty()) {
+            try {
+                Command first = queue.poll(POLL_MILLIS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                // 不额外等待凑批：上一批提交期间到达的命令自然组成下一批
+                batch.add(first);
+                queue.drainTo(batch, maxBatchSize - 1);
+                apply(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                running = false;
+            } catch (Throwable e) {
+                // 非业务异常（数据库错误、Error 等）或提交失败：整批都没有生效，整批失败；
+                // 写线程只有一个，不能因此退出，否则之后的命令都不会再完成
+                batch.forEach(command -> command.future.completeExceptionally(e));
+                log.error("Borrow group commit batch failed", e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void apply(List<Command> batch) {
+        if (batchSizes != null) {
+            batchSizes.record(batch.size());
+        }
+        List<BorrowService.WriteResult> results = new ArrayList<>(batch.size());
+        transactionTemplate.executeWithoutResult(status -> {
+            for (Command command : batch) {
+                results.add(command.action.get());
+            }
+        });
+        for (int i = 0; i < batch.size(); i++) {
+            BorrowService.WriteResult result = results.get(i);
+            if (result.error() != null) {
+                batch.get(i).future.completeExceptionally(new RuntimeException(result.error()));
+            } else {
+                batch.get(i).future.complete(result.borrow());
+            }
+        }
+    }
+
+    @PreDestroy
+    void stop() throws InterruptedException {
+        if (enabled) {
+            running = false;
+            writer.join(TimeUnit.SECONDS.toMillis(10));
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.borrow.queue.size", queue, BlockingQueue::size)
+                .description("Borrow and return commands waiting for the group-commit writer")
+                .register(registry);
+        batchSizes = DistributionSummary.builder("app.borrow.batch.size")
+                .description("Commands committed per group-commit transaction")
+                .register(registry);
+    }
+
+    private record Command(Supplier<BorrowService.WriteResult> action, CompletableFuture<BorrowDTO> future) {
+    }
+}
@@ -2,52 +2,77 @@ package com.bookadmin.service;
 
 import com.bookadmin.dto.CategoryDTO;
 import com.bookadmin.entity.Category;
+import com.bookadmin.enums.TrackedTable;
 import com.bookadmin.repository.CategoryRepository;
+import io.micrometer.core.annotation.Timed;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.util.List;
 import java.util.stream.Collectors;
 
 @Service
+@Timed("app.service")
 @RequiredArgsConstructor
 @Transactional
 public class CategoryService {
     
     private final CategoryRepository categoryRepository;
+    private final CategoryTree categoryTree;
+    private final ChangeCounters changeCounters;
+    private final LookupCache lookupCache;
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<CategoryDTO> getCategories(Integer level, Boolean all) {
-        List<Category> categories;
-        
         if (Boolean.TRUE.equals(all)) {
-            categories = categoryRepository.findAll();
+            return categoryTree.getAll();
         } else if (level != null) {
-            categories = categoryRepository.findByLevel(level);
-        } else {
-            categories = categoryRepository.findRootCategories();
+            return categoryTree.getByLevel(level);
         }
-        
-        return categories.stream()
-                .map(this::convertToDTO)
-                .collect(Collectors.toList());
+        return categoryTree.getRoots();
+    }
+    
+    // 与 getCategories 相同的结果，直接返回预先序列化好的 JSON
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public byte[] getCategoriesJson(Integer level, Boolean all) {
+        if (Boolean.TRUE.equals(all)) {
+            return categoryTree.getAllJson();
+        } else if (level != null) {
+            return categoryTree.getByLevelJson(level);
+        }
+        return categoryTree.getRootsJson();
     }
     
+    @Transactional(propagation = Propagation.SUPPORTS)
     public CategoryDTO getCategoryById(Long id) {
-        Category category = categoryRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Category not found"));
-        return convertToDTO(category);
+        CategoryDTO category = categoryTree.getById(id);
+        if (category == null) {
+            throw new RuntimeException("Category not found");
+        }
+        return category;
     }
     
     public CategoryDTO createCategory(CategoryDTO categoryDTO) {
+        changeCounters.touch(TrackedTable.CATEGORIES);
         Category category = convertToEntity(categoryDTO);
         Category savedCategory = categoryRepository.save(category);
+        rebuildTreeAfterCommit();
         return convertToDTO(savedCategory);
     }
     
     public CategoryDTO updateCategory(Long id, CategoryDTO categoryDTO) {
+        changeCounters.touch(TrackedTable.CATEGORIES);
         Category existingCategory = categoryRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Category not found"));
+        if (categoryDTO.getVersion() != null && !categoryDTO.getVersion().equals(existingCategory.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "Category has been modified");
+        }
         
         existingCategory.setName(categoryDTO.getName());
         existingCategory.setLevel(categoryDTO.getLevel());
@@ -59,12 +84,31 @@ public class CategoryService {
             existingCategory.setParent(parent);
         }
         
-        Category savedCategory = categoryRepository.save(existingCategory);
+        Category savedCategory = categoryRepository.saveAndFlush(existingCategory);
+        rebuildTreeAfterCommit();
         return convertToDTO(savedCategory);
     }
     
     public void deleteCategory(Long id) {
+        changeCounters.touch(TrackedTable.CATEGORIES);
         categoryRepository.deleteById(id);
+        rebuildTreeAfterCommit();
+    }
+    
+    // 写入提交后重建分类树快照，回滚时保持原快照；缓存的图书带有分类名，一并失效
+    private void rebuildTreeAfterCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    categoryTree.rebuild();
+                    lookupCache.evictAllBooks();
+                }
+            });
+        } else {
+            categoryTree.rebuild();
+            lookupCache.evictAllBooks();
+        }
     }
     
     private CategoryDTO convertToDTO(Category category) {
@@ -73,6 +117,7 @@ public class CategoryService {
         dto.setName(category.getName());
         dto.setLevel(category.getLevel());
         dto.setParentLevel(category.getParentLevel());
+        dto.setVersion(category.getVersion());
         
         if (category.getParent() != null) {
             dto.setParentId(category.getParent().getId());
@@ -0,0 +1,185 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.CategoryDTO;
+import com.bookadmin.entity.Category;
+import com.bookadmin.repository.CategoryRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * 分类树的内存快照。分类很少修改却在每个图书表单和筛选里读取，
+ * 这里一次查出全部分类组装成不可变的树，并预先序列化好 JSON，读取不再访问数据库。
+ * 分类写入提交后整体重建快照并原子替换，读请求始终看到完整一致的一棵树。
+ */
+@Slf4j
+@Component
+public class CategoryTree {
+
+    private final CategoryRepository categoryRepository;
+    private final ObjectMapper objectMapper;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Snapshot snapshot;
+    // 不用 synchronized：虚拟线程在 synchronized 中做 JDBC 调用会占住载体线程
+    private final ReentrantLock rebuildLock = new ReentrantLock();
+
+    public CategoryTree(CategoryRepository categoryRepository, ObjectMapper objectMapper,
+                        PlatformTransactionManager transactionManager) {
+        this.categoryRepository = categoryRepository;
+        this.objectMapper = objectMapper;
+        // 重建在写事务提交后执行，需要独立的只读事务
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        rebuildLock.lock();
+        try {
+            List<Category> categories = transactionTemplate.execute(status -> categoryRepository.findAll());
+            snapshot = new Snapshot(categories, objectMapper);
+            log.info("Category tree built: {} categories", categories.size());
+        } finally {
+            rebuildLock.unlock();
+        }
+    }
+
+    public List<CategoryDTO> getRoots() {
+        return snapshot().roots;
+    }
+
+    // 全部分类的平铺列表，不带子节点，避免子分类在父分类下重复出现
+    public List<CategoryDTO> getAll() {
+        return snapshot().all;
+    }
+
+    public List<CategoryDTO> getByLevel(Integer level) {
+        return snapshot().byLevel.getOrDefault(level, List.of());
+    }
+
+    public CategoryDTO getById(Long id) {
+        return snapshot().byId.get(id);
+    }
+
+    public byte[] getRootsJson() {
+        return snapshot().rootsJson;
+    }
+
+    public byte[] getAllJson() {
+        return snapshot().allJson;
+    }
+
+    public byte[] getByLevelJson(Integer level) {
+        return snapshot().byLevelJson.getOrDefault(level, Snapshot.EMPTY_JSON);
+    }
+
+    public List<Long> findIdsByNameContaining(String name) {
+        return snapshot().all.stream()
+                .filter(category -> category.getName() != null && category.getName().contains(name))
+                .map(CategoryDTO::getId)
+                .collect(Collectors.toList());
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            rebuild();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    private static final class Snapshot {
+        private static final byte[] EMPTY_JSON = "[]".getBytes();
+
+        private final List<CategoryDTO> roots;
+        private final List<CategoryDTO> all;
+        private final Map<Long, CategoryDTO> byId;
+        private final Map<Integer, List<CategoryDTO>> byLevel;
+        private final byte[] rootsJson;
+        private final byte[] allJson;
+        private final Map<Integer, byte[]> byLevelJson;
+
+        Snapshot(List<Category> categories, ObjectMapper objectMapper) {
+            List<Category> sorted = new ArrayList<>(categories);
+            sorted.sort(Comparator.comparing(Category::getId));
+
+            // 先建节点再挂子节点，parent 是懒加载代理，取ID不会触发查询
+            Map<Long, CategoryDTO> nodes = new LinkedHashMap<>();
+            Map<Long, List<CategoryDTO>> children = new LinkedHashMap<>();
+            for (Category category : sorted) {
+                CategoryDTO dto = new CategoryDTO();
+                dto.setId(category.getId());
+                dto.setName(category.getName());
+                dto.setLevel(category.getLevel());
+                dto.setParentLevel(category.getParentLevel());
+                dto.setVersion(category.getVersion());
+                if (category.getParent() != null) {
+                    dto.setParentId(category.getParent().getId());
+                }
+                nodes.put(dto.getId(), dto);
+                children.put(dto.getId(), new ArrayList<>());
+            }
+
+            List<CategoryDTO> rootList = new ArrayList<>();
+            for (CategoryDTO dto : nodes.values()) {
+                CategoryDTO parent = dto.getParentId() != null ? nodes.get(dto.getParentId()) : null;
+                if (parent != null) {
+                    dto.setParentName(parent.getName());
+                    children.get(parent.getId()).add(dto);
+                } else {
+                    rootList.add(dto);
+                }
+            }
+            for (CategoryDTO dto : nodes.values()) {
+                List<CategoryDTO> list = children.get(dto.getId());
+                dto.setChildren(list.isEmpty() ? null : List.copyOf(list));
+            }
+
+            List<CategoryDTO> flat = new ArrayList<>(nodes.size());
+            for (CategoryDTO dto : nodes.values()) {
+                flat.add(new CategoryDTO(dto.getId(), dto.getName(), dto.getLevel(), dto.getParentLevel(),
+                        dto.getParentId(), dto.getParentName(), dto.getVersion(), null));
+            }
+
+            this.roots = List.copyOf(rootList);
+            this.all = List.copyOf(flat);
+            this.byId = Map.copyOf(nodes);
+            this.byLevel = nodes.values().stream()
+                    .collect(Collectors.collectingAndThen(
+                            Collectors.groupingBy(CategoryDTO::getLevel, LinkedHashMap::new,
+                                    Collectors.collectingAndThen(Collectors.toList(), List::copyOf)),
+                            Map::copyOf));
+
+            this.rootsJson = serialize(objectMapper, roots);
+            this.allJson = serialize(objectMapper, all);
+            this.byLevelJson = byLevel.entrySet().stream()
+                    .collect(Collectors.toUnmodifiableMap(Map.Entry::getKey,
+                            entry -> serialize(objectMapper, entry.getValue())));
+        }
+
+        private static byte[] serialize(ObjectMapper objectMapper, Object value) {
+            try {
+                return objectMapper.writeValueAsBytes(value);
+            } catch (JsonProcessingException e) {
+                throw new IllegalStateException("Failed to serialize category tree", e);
+            }
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.bookadmin.service;
+
+import com.bookadmin.enums.TrackedTable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 表级变更计数，每次写事务提交后自增，列表接口据此生成 ETag，
+ * 客户端带 If-None-Match 轮询时不必查询和序列化数据即可返回 304。
+ * 计数只在内存中，前缀带上启动时间，重启后旧的 ETag 全部失效；多实例部署需换成共享计数。
+ */
+@Component
+public class ChangeCounters {
+
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicLongArray counters = new AtomicLongArray(TrackedTable.values().length);
+
+    // 必须在提交后自增：提交前自增会让读请求用新 ETag 缓存旧数据
+    public void touch(TrackedTable table) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    counters.incrementAndGet(table.ordinal());
+                }
+            });
+        } else {
+            counters.incrementAndGet(table.ordinal());
+        }
+    }
+
+    // 组合各表计数生成 ETag（不带引号，由 WebRequest.checkNotModified 补上），须在读取数据之前调用
+    public String etag(String prefix, TrackedTable... tables) {
+        StringBuilder etag = new StringBuilder(prefix).append('-').append(epoch);
+        for (TrackedTable table : tables) {
+            etag.append('-').append(counters.get(table.ordinal()));
+        }
+        return etag.toString();
+    }
+}
@@ -0,0 +1,378 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.CirculationSeriesPoint;
+import com.bookadmin.dto.RollupBackfillResult;
+import com.bookadmin.entity.DailyCirculation;
+import com.bookadmin.enums.SeriesGranularity;
+import com.bookadmin.repository.BorrowRepository;
+import com.bookadmin.repository.DailyCirculationRepository;
+import com.bookadmin.repository.StockRecordRepository;
+import jakarta.annotation.PreDestroy;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Stream;
+
+/**
+ * 借阅、归还、入库的按天汇总（daily_circulation）。写事务提交后把增量记在内存中，每隔 app.rollup.flush-interval
+ * 由单个线程合并写入汇总表：当天的汇总行不会成为写事务之间的行锁热点；进程异常退出时丢失的增量可以由回填补回。
+ * 时间序列只读汇总表（加上尚未写入的增量），不扫描借阅、入库表。
+ * 回填把日期范围按 app.rollup.backfill.chunk-days 切段，用 fork-join 并行从借阅、入库表重新汇总并覆盖各段的汇总行。
+ */
+@Slf4j
+@Component
+public class CirculationRollup {
+
+    private static final int MAX_POINTS = 1000;
+
+    private final DailyCirculationRepository dailyCirculationRepository;
+    private final BorrowRepository borrowRepository;
+    private final StockRecordRepository stockRecordRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+    // 回填每段一个事务，段内各项汇总在同一个快照上读取
+    private final TransactionTemplate chunkTemplate;
+    private final int chunkDays;
+    private final int parallelism;
+
+    // 尚未写入汇总表的增量，写入时在写锁下整体换出
+    private volatile Map<LocalDate, Counts> pending = new ConcurrentHashMap<>();
+    private final CommitLock commitLock = new CommitLock();
+    // 写入汇总表与回填互斥
+    private final ReentrantLock flushLock = new ReentrantLock();
+    // 回填期间落在回填范围内的增量记入它的日志
+    private Backfill backfill;
+
+    public CirculationRollup(DailyCirculationRepository dailyCirculationRepository,
+                             BorrowRepository borrowRepository,
+                             StockRecordRepository stockRecordRepository,
+                             EntityManager entityManager,
+                             PlatformTransactionManager transactionManager,
+                             @Value("${app.rollup.backfill.chunk-days:31}") int chunkDays,
+                             @Value("${app.rollup.backfill.parallelism:4}") int parallelism) {
+        this.dailyCirculationRepository = dailyCirculationRepository;
+        this.borrowRepository = borrowRepository;
+        this.stockRecordRepository = stockRecordRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkTemplate = new TransactionTemplate(transactionManager);
+        this.chunkTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.chunkTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.chunkDays = chunkDays;
+        this.parallelism = parallelism;
+    }
+
+    public void borrowed(LocalDateTime borrowDate) {
+        onCommit(borrowDate.toLocalDate(), 1, 0, 0);
+    }
+
+    public void returned(LocalDateTime returnDate) {
+        onCommit(returnDate.toLocalDate(), 0, 1, 0);
+    }
+
+    // 删除借阅记录：借出日减一，已归还的归还日也减一
+    public void borrowDeleted(LocalDateTime borrowDate, LocalDateTime returnDate) {
+        if (borrowDate != null) {
+            onCommit(borrowDate.toLocalDate(), -1, 0, 0);
+        }
+        if (returnDate != null) {
+            onCommit(returnDate.toLocalDate(), 0, -1, 0);
+        }
+    }
+
+    // 入库（quantity 为正）或撤销入库（为负），记在入库记录的创建日
+    public void stocked(LocalDateTime createdAt, long quantity) {
+        onCommit(createdAt.toLocalDate(), 0, 0, quantity);
+    }
+
+    // 按天或按月的时间序列，from、to 均包含；按月时首尾两个月只统计范围内的日期
+    public List<CirculationSeriesPoint> getSeries(LocalDate from, LocalDate to, SeriesGranularity granularity) {
+        if (from.isAfter(to)) {
+            throw new RuntimeException("from must not be after to");
+        }
+        long points = granularity == SeriesGranularity.MONTH
+                ? ChronoUnit.MONTHS.between(from.withDayOfMonth(1), to.withDayOfMonth(1)) + 1
+                : ChronoUnit.DAYS.between(from, to) + 1;
+        if (points > MAX_POINTS) {
+            throw new RuntimeException("Range must not exceed " + MAX_POINTS + " " + granularity.getValue() + "s");
+        }
+
+        Map<LocalDate, long[]> buckets = new LinkedHashMap<>();
+        for (LocalDate bucket = bucket(from, granularity); !bucket.isAfter(to); bucket = next(bucket, granularity)) {
+            buckets.put(bucket, new long[3]);
+        }
+        for (DailyCirculation day : dailyCirculationRepository.findByStatDateBetweenOrderByStatDate(from, to)) {
+            long[] values = buckets.get(bucket(day.getStatDate(), granularity));
+            values[0] += day.getBorrows();
+            values[1] += day.getReturns();
+            values[2] += day.getStockedIn();
+        }
+        pending.forEach((day, counts) -> {
+            if (!day.isBefore(from) && !day.isAfter(to)) {
+                long[] values = buckets.get(bucket(day, granularity));
+                values[0] += counts.borrows.get();
+                values[1] += counts.returns.get();
+                values[2] += counts.stockedIn.get();
+            }
+        });
+        return buckets.entrySet().stream()
+                .map(entry -> new CirculationSeriesPoint(entry.getKey(),
+                        entry.getValue()[0], entry.getValue()[1], entry.getValue()[2]))
+                .toList();
+    }
+
+    private static LocalDate bucket(LocalDate day, SeriesGranularity granularity) {
+        return granularity == SeriesGranularity.MONTH ? day.withDayOfMonth(1) : day;
+    }
+
+    private static LocalDate next(LocalDate bucket, SeriesGranularity granularity) {
+        return granularity == SeriesGranularity.MONTH ? bucket.plusMonths(1) : bucket.plusDays(1);
+    }
+
+    @Scheduled(initialDelayString = "${app.rollup.flush-interval:PT5S}",
+               fixedDelayString = "${app.rollup.flush-interval:PT5S}")
+    public void flush() {
+        // 回填进行中时跳过，增量留到下一次
+        if (!flushLock.tryLock()) {
+            return;
+        }
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    @PreDestroy
+    void flushOnShutdown() {
+        flushLock.lock();
+        try {
+            flushPending();
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private void flushPending() {
+        Map<LocalDate, Counts> flushed = commitLock.exclusiveGet(() -> {
+            Map<LocalDate, Counts> current = pending;
+            pending = new ConcurrentHashMap<>();
+            return current;
+        });
+        if (flushed.isEmpty()) {
+            return;
+        }
+        try {
+            transactionTemplate.executeWithoutResult(status -> flushed.forEach((day, counts) -> {
+                long borrows = counts.borrows.get();
+                long returns = counts.returns.get();
+                long stockedIn = counts.stockedIn.get();
+                if (dailyCirculationRepository.increment(day, borrows, returns, stockedIn) == 0) {
+                    entityManager.persist(new DailyCirculation(day, borrows, returns, stockedIn));
+                }
+            }));
+        } catch (RuntimeException e) {
+            // 整批没有写入，放回去下一次重试（多实例同时插入同一天时会主键冲突）
+            commitLock.shared(() -> flushed.forEach((day, counts) -> add(day, counts.borrows.get(),
+                    counts.returns.get(), counts.stockedIn.get())));
+            throw e;
+        }
+    }
+
+    // 汇总表为空（首次部署、内存库）时回填全部历史
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        if (dailyCirculationRepository.count() == 0) {
+            backfill(null, null);
+        }
+    }
+
+    // from 为空时从最早的借阅、入库日期开始，to 为空时到今天
+    public RollupBackfillResult backfill(LocalDate from, LocalDate to) {
+        LocalDate start = from != null ? from : firstDay();
+        LocalDate end = to != null ? to : LocalDate.now();
+        if (start.isAfter(end)) {
+            throw new RuntimeException("from must not be after to");
+        }
+
+        flushLock.lock();
+        try {
+            long startedAt = System.nanoTime();
+            Backfill running = new Backfill(start, end);
+            commitLock.exclusive(() -> {
+                // 尚未写入的增量已经提交，会包含在各段的快照里，也移入日志，按同样的规则处理
+                pending.entrySet().removeIf(entry -> {
+                    if (!running.covers(entry.getKey())) {
+                        return false;
+                    }
+                    Counts counts = entry.getValue();
+                    running.journal.add(new JournalEntry(-1, entry.getKey(), counts.borrows.get(),
+                            counts.returns.get(), counts.stockedIn.get()));
+                    return true;
+                });
+                backfill = running;
+            });
+            ForkJoinPool pool = new ForkJoinPool(parallelism);
+            try {
+                pool.invoke(new BackfillTask(running, start, end));
+            } finally {
+                pool.shutdown();
+                commitLock.exclusive(() -> {
+                    running.settle();
+                    backfill = null;
+                });
+            }
+            long elapsed = (System.nanoTime() - startedAt) / 1_000_000;
+            log.info("Circulation rollup backfilled {} ~ {}: {} chunks, {} days in {} ms",
+                    start, end, running.chunks.size(), running.days.get(), elapsed);
+            return new RollupBackfillResult(start, end, running.chunks.size(), running.days.get(), elapsed);
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private LocalDate firstDay() {
+        return Stream.of(borrowRepository.findFirstBorrowDate(), stockRecordRepository.findFirstCreatedAt())
+                .flatMap(Optional::stream)
+                .map(LocalDateTime::toLocalDate)
+                .min(LocalDate::compareTo)
+                .orElse(LocalDate.now());
+    }
+
+    // 一段日期：在写锁下建立快照并记下日志位置，汇总后整段覆盖
+    private void backfillChunk(Backfill running, LocalDate from, LocalDate to) {
+        LocalDateTime start = from.atStartOfDay();
+        LocalDateTime end = to.plusDays(1).atStartOfDay();
+        Map<LocalDate, long[]> days = new TreeMap<>();
+        Long position = chunkTemplate.execute(status -> {
+            long snapshotPosition = commitLock.exclusiveSnapshot(entityManager, running.sequence::get,
+                    "borrows", "stock_records");
+            for (Object[] row : borrowRepository.countByBorrowDay(start, end)) {
+                days.computeIfAbsent((LocalDate) row[0], day -> new long[3])[0] = ((Number) row[1]).longValue();
+            }
+            for (Object[] row : borrowRepository.countByReturnDay(start, end)) {
+                days.computeIfAbsent((LocalDate) row[0], day -> new long[3])[1] = ((Number) row[1]).longValue();
+            }
+            for (Object[] row : stockRecordRepository.sumQuantityByDay(start, end)) {
+                days.computeIfAbsent((LocalDate) row[0], day -> new long[3])[2] = ((Number) row[1]).longValue();
+            }
+            dailyCirculationRepository.deleteByStatDateBetween(from, to);
+            days.forEach((day, values) ->
+                    entityManager.persist(new DailyCirculation(day, values[0], values[1], values[2])));
+            return snapshotPosition;
+        });
+        running.chunks.put(from, new Chunk(from, to, position));
+        running.days.addAndGet(days.size());
+    }
+
+    private void onCommit(LocalDate day, long borrows, long returns, long stockedIn) {
+        commitLock.afterCommit(() -> {
+            Backfill running = backfill;
+            if (running != null && running.covers(day)) {
+                running.journal.add(new JournalEntry(running.sequence.getAndIncrement(), day,
+                        borrows, returns, stockedIn));
+            } else {
+                add(day, borrows, returns, stockedIn);
+            }
+        });
+    }
+
+    // 在提交屏障的读锁内执行
+    private void add(LocalDate day, long borrows, long returns, long stockedIn) {
+        Counts counts = pending.computeIfAbsent(day, key -> new Counts());
+        counts.borrows.addAndGet(borrows);
+        counts.returns.addAndGet(returns);
+        counts.stockedIn.addAndGet(stockedIn);
+    }
+
+    private final class BackfillTask extends RecursiveAction {
+        private final Backfill running;
+        private final LocalDate from;
+        private final LocalDate to;
+
+        BackfillTask(Backfill running, LocalDate from, LocalDate to) {
+            this.running = running;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            long days = ChronoUnit.DAYS.between(from, to) + 1;
+            if (days <= chunkDays) {
+                backfillChunk(running, from, to);
+                return;
+            }
+            LocalDate middle = from.plusDays(days / 2 - 1);
+            invokeAll(new BackfillTask(running, from, middle), new BackfillTask(running, middle.plusDays(1), to));
+        }
+    }
+
+    private final class Backfill {
+        private final LocalDate from;
+        private final LocalDate to;
+        private final AtomicLong sequence = new AtomicLong();
+        private final Queue<JournalEntry> journal = new ConcurrentLinkedQueue<>();
+        // 已提交的段，按起始日期
+        private final ConcurrentSkipListMap<LocalDate, Chunk> chunks = new ConcurrentSkipListMap<>();
+        private final AtomicInteger days = new AtomicInteger();
+
+        Backfill(LocalDate from, LocalDate to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        boolean covers(LocalDate day) {
+            return !day.isBefore(from) && !day.isAfter(to);
+        }
+
+        // 在写锁下执行：段快照之后的增量放回待写入；段失败（没有提交）时日志全部放回，汇总行仍是回填前的值
+        void settle() {
+            for (JournalEntry entry : journal) {
+                Map.Entry<LocalDate, Chunk> floor = chunks.floorEntry(entry.day);
+                Chunk chunk = floor != null && !entry.day.isAfter(floor.getValue().to) ? floor.getValue() : null;
+                if (chunk == null || entry.sequence >= chunk.position) {
+                    add(entry.day, entry.borrows, entry.returns, entry.stockedIn);
+                }
+            }
+        }
+    }
+
+    private record Chunk(LocalDate from, LocalDate to, long position) {
+    }
+
+    private record JournalEntry(long sequence, LocalDate day, long borrows, long returns, long stockedIn) {
+    }
+
+    private static final class Counts {
+        private final AtomicLong borrows = new AtomicLong();
+        private final AtomicLong returns = new AtomicLong();
+        private final AtomicLong stockedIn = new AtomicLong();
+    }
+}
@@ -0,0 +1,340 @@
+package com.bookadmin.service;
+
+import com.bookadmin.enums.StatsMetric;
+import com.bookadmin.repository.BorrowRepository;
+import com.bookadmin.repository.StockRecordRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.persistence.EntityManager;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
+
+/**
+ * 图书、分类、读者的流通计数：累计借阅数、未还借阅数、累计入库数量。
+ * 借阅、归还、删除借阅、入库的写事务提交后增量更新，读取只查内存中的哈希表；
+ * 每项计数另有一个按计数值排序的跳表，排行榜直接取前 N 个，不需要排序。
+ * 启动时和每隔 app.stats.reconcile-interval 从数据库汇总重建全部计数，纠正直接写库、图书删除、多实例部署等造成的偏差。
+ */
+@Slf4j
+@Component
+public class CirculationStats implements MeterBinder {
+
+    public enum Scope {
+        BOOK, CATEGORY, USER
+    }
+
+    public record Count(Long id, long value) {
+    }
+
+    private final BorrowRepository borrowRepository;
+    private final StockRecordRepository stockRecordRepository;
+    private final EntityManager entityManager;
+    private final TransactionTemplate transactionTemplate;
+
+    private volatile Counters counters = new Counters();
+    // 重建建立快照、替换计数时持写锁
+    private final CommitLock commitLock = new CommitLock();
+    // 重建期间提交的增量，重建结果替换前补上
+    private Queue<Delta> journal;
+    private final ReentrantLock reconcileLock = new ReentrantLock();
+    private volatile LocalDateTime reconciledAt;
+    private volatile long lastDrift;
+    // 启动完成（数据初始化之后）才统计偏差
+    private volatile boolean ready;
+
+    public CirculationStats(BorrowRepository borrowRepository, StockRecordRepository stockRecordRepository,
+                            EntityManager entityManager, PlatformTransactionManager transactionManager) {
+        this.borrowRepository = borrowRepository;
+        this.stockRecordRepository = stockRecordRepository;
+        this.entityManager = entityManager;
+        // 各项汇总在同一个快照上读取
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        this.transactionTemplate.setReadOnly(true);
+    }
+
+    public void borrowed(Long bookId, Long categoryId, Long userId) {
+        onCommit(current -> List.of(
+                new Delta(Scope.BOOK, StatsMetric.BORROWS, bookId, 1),
+                new Delta(Scope.BOOK, StatsMetric.ACTIVE, bookId, 1),
+                new Delta(Scope.CATEGORY, StatsMetric.BORROWS, categoryId, 1),
+                new Delta(Scope.CATEGORY, StatsMetric.ACTIVE, categoryId, 1),
+                new Delta(Scope.USER, StatsMetric.BORROWS, userId, 1),
+                new Delta(Scope.USER, StatsMetric.ACTIVE, userId, 1)));
+    }
+
+    public void returned(Long bookId, Long categoryId, Long userId) {
+        onCommit(current -> List.of(
+                new Delta(Scope.BOOK, StatsMetric.ACTIVE, bookId, -1),
+                new Delta(Scope.CATEGORY, StatsMetric.ACTIVE, categoryId, -1),
+                new Delta(Scope.USER, StatsMetric.ACTIVE, userId, -1)));
+    }
+
+    // 删除借阅记录：累计借阅数也要减去，未还的同时减未还数
+    public void deleted(Long bookId, Long categoryId, Long userId, boolean active) {
+        long activeDelta = active ? -1 : 0;
+        onCommit(current -> List.of(
+                new Delta(Scope.BOOK, StatsMetric.BORROWS, bookId, -1),
+                new Delta(Scope.BOOK, StatsMetric.ACTIVE, bookId, activeDelta),
+                new Delta(Scope.CATEGORY, StatsMetric.BORROWS, categoryId, -1),
+                new Delta(Scope.CATEGORY, StatsMetric.ACTIVE, categoryId, activeDelta),
+                new Delta(Scope.USER, StatsMetric.BORROWS, userId, -1),
+                new Delta(Scope.USER, StatsMetric.ACTIVE, userId, activeDelta)));
+    }
+
+    // 入库（quantity 为正）或撤销入库（为负）
+    public void stocked(Long bookId, Long categoryId, long quantity) {
+        onCommit(current -> List.of(
+                new Delta(Scope.BOOK, StatsMetric.STOCKED, bookId, quantity),
+                new Delta(Scope.CATEGORY, StatsMetric.STOCKED, categoryId, quantity)));
+    }
+
+    // 图书改了分类：把该书的计数从原分类移到新分类
+    public void moveBook(Long bookId, Long fromCategoryId, Long toCategoryId) {
+        onCommit(current -> {
+            List<Delta> deltas = new ArrayList<>();
+            for (StatsMetric metric : StatsMetric.values()) {
+                long value = current.get(Scope.BOOK, metric).get(bookId);
+                deltas.add(new Delta(Scope.CATEGORY, metric, fromCategoryId, -value));
+                deltas.add(new Delta(Scope.CATEGORY, metric, toCategoryId, value));
+            }
+            return deltas;
+        });
+    }
+
+    public long get(Scope scope, StatsMetric metric, Long id) {
+        return counters().get(scope, metric).get(id);
+    }
+
+    public long total(StatsMetric metric) {
+        return counters().get(Scope.BOOK, metric).total();
+    }
+
+    public List<Count> top(Scope scope, StatsMetric metric, int limit) {
+        return counters().get(scope, metric).top(limit);
+    }
+
+    // 启动完成前就有请求时先构建一次
+    private Counters counters() {
+        if (reconciledAt == null) {
+            reconcileLock.lock();
+            try {
+                if (reconciledAt == null) {
+                    reconcile();
+                }
+            } finally {
+                reconcileLock.unlock();
+            }
+        }
+        return counters;
+    }
+
+    public LocalDateTime getReconciledAt() {
+        return reconciledAt;
+    }
+
+    public long getLastDrift() {
+        return lastDrift;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onReady() {
+        reconcile();
+        ready = true;
+    }
+
+    @Scheduled(initialDelayString = "${app.stats.reconcile-interval:PT1H}",
+               fixedDelayString = "${app.stats.reconcile-interval:PT1H}")
+    public void reconcile() {
+        reconcileLock.lock();
+        try {
+            long start = System.nanoTime();
+            Queue<Delta> pending = new ConcurrentLinkedQueue<>();
+            Counters rebuilt;
+            try {
+                rebuilt = transactionTemplate.execute(status -> {
+                    commitLock.exclusiveSnapshot(entityManager, () -> {
+                        journal = pending;
+                        return null;
+                    }, "borrows", "books", "stock_records");
+                    return load();
+                });
+            } catch (RuntimeException e) {
+                commitLock.exclusive(() -> journal = null);
+                throw e;
+            }
+
+            long drift = commitLock.exclusiveGet(() -> {
+                pending.forEach(rebuilt::add);
+                long corrected = ready ? rebuilt.drift(counters) : 0;
+                counters = rebuilt;
+                journal = null;
+                return corrected;
+            });
+            reconciledAt = LocalDateTime.now();
+            lastDrift = drift;
+            log.info("Circulation stats reconciled in {} ms, drift {}", (System.nanoTime() - start) / 1_000_000, drift);
+        } finally {
+            reconcileLock.unlock();
+        }
+    }
+
+    private Counters load() {
+        Counters loaded = new Counters();
+        loadBorrows(loaded, Scope.BOOK, borrowRepository.countGroupByBook());
+        loadBorrows(loaded, Scope.CATEGORY, borrowRepository.countGroupByCategory());
+        loadBorrows(loaded, Scope.USER, borrowRepository.countGroupByUser());
+        loadStocked(loaded, Scope.BOOK, stockRecordRepository.sumQuantityGroupByBook());
+        loadStocked(loaded, Scope.CATEGORY, stockRecordRepository.sumQuantityGroupByCategory());
+        return loaded;
+    }
+
+    // 每行 [ID, 借阅数, 未还数]
+    private static void loadBorrows(Counters counters, Scope scope, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            Long id = (Long) row[0];
+            counters.add(new Delta(scope, StatsMetric.BORROWS, id, ((Number) row[1]).longValue()));
+            counters.add(new Delta(scope, StatsMetric.ACTIVE, id, ((Number) row[2]).longValue()));
+        }
+    }
+
+    // 每行 [ID, 入库数量]
+    private static void loadStocked(Counters counters, Scope scope, List<Object[]> rows) {
+        for (Object[] row : rows) {
+            counters.add(new Delta(scope, StatsMetric.STOCKED, (Long) row[0], ((Number) row[1]).longValue()));
+        }
+    }
+
+    // 提交后更新，回滚的写入不计数
+    private void onCommit(Function<Counters, List<Delta>> change) {
+        commitLock.afterCommit(() -> apply(change));
+    }
+
+    // 在提交屏障的读锁内执行
+    private void apply(Function<Counters, List<Delta>> change) {
+        Counters current = counters;
+        List<Delta> deltas = change.apply(current);
+        deltas.forEach(current::add);
+        if (journal != null) {
+            journal.addAll(deltas);
+        }
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.stats.drift", this, CirculationStats::getLastDrift)
+                .description("Total counter drift corrected by the last circulation stats reconciliation")
+                .register(registry);
+    }
+
+    private record Delta(Scope scope, StatsMetric metric, Long id, long delta) {
+    }
+
+    private static final class Counters {
+        private final Map<Scope, Map<StatsMetric, RankedCounter>> counters = new EnumMap<>(Scope.class);
+
+        Counters() {
+            for (Scope scope : Scope.values()) {
+                Map<StatsMetric, RankedCounter> byMetric = new EnumMap<>(StatsMetric.class);
+                for (StatsMetric metric : StatsMetric.values()) {
+                    byMetric.put(metric, new RankedCounter());
+                }
+                counters.put(scope, byMetric);
+            }
+        }
+
+        RankedCounter get(Scope scope, StatsMetric metric) {
+            return counters.get(scope).get(metric);
+        }
+
+        void add(Delta delta) {
+            get(delta.scope, delta.metric).add(delta.id, delta.delta);
+        }
+
+        // 各项计数差值的绝对值之和
+        long drift(Counters other) {
+            long drift = 0;
+            for (Scope scope : Scope.values()) {
+                for (StatsMetric metric : StatsMetric.values()) {
+                    drift += get(scope, metric).diff(other.get(scope, metric));
+                }
+            }
+            return drift;
+        }
+    }
+
+    private static final class RankedCounter {
+        private static final Comparator<Count> RANKING = Comparator.comparingLong(Count::value).reversed()
+                .thenComparing(Count::id);
+
+        private final ConcurrentHashMap<Long, Long> values = new ConcurrentHashMap<>();
+        // 计数值倒序、ID 升序；与 values 在同一个 compute 中更新
+        private final ConcurrentSkipListSet<Count> ranking = new ConcurrentSkipListSet<>(RANKING);
+        private final AtomicLong total = new AtomicLong();
+
+        void add(Long id, long delta) {
+            // 没有分类的图书不计入分类统计
+            if (id == null || delta == 0) {
+                return;
+            }
+            total.addAndGet(delta);
+            values.compute(id, (key, old) -> {
+                long next = (old != null ? old : 0) + delta;
+                if (old != null) {
+                    ranking.remove(new Count(key, old));
+                }
+                if (next != 0) {
+                    ranking.add(new Count(key, next));
+                }
+                return next != 0 ? next : null;
+            });
+        }
+
+        long get(Long id) {
+            return id != null ? values.getOrDefault(id, 0L) : 0;
+        }
+
+        long total() {
+            return total.get();
+        }
+
+        List<Count> top(int limit) {
+            return ranking.stream().limit(limit).toList();
+        }
+
+        long diff(RankedCounter other) {
+            long diff = 0;
+            for (Map.Entry<Long, Long> entry : values.entrySet()) {
+                diff += Math.abs(entry.getValue() - other.get(entry.getKey()));
+            }
+            for (Map.Entry<Long, Long> entry : other.values.entrySet()) {
+                if (!values.containsKey(entry.getKey())) {
+                    diff += Math.abs(entry.getValue());
+                }
+            }
+            return diff;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.bookadmin.service;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * 写事务提交与内存增量之间的屏障。afterCommit 的动作在提交前取读锁，事务完成、动作执行之后才释放，回滚时不执行。
+ * 持有写锁期间没有提交进行到一半：此时建立的数据库快照与内存增量以同一时刻为界，
+ * 每次写入要么已在快照中、也已执行了动作，要么都还没有。
+ */
+final class CommitLock {
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            shared(action);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private boolean locked;
+
+            @Override
+            public void beforeCommit(boolean readOnly) {
+                lock.readLock().lock();
+                locked = true;
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                if (!locked) {
+                    return;
+                }
+                try {
+                    if (status == STATUS_COMMITTED) {
+                        action.run();
+                    }
+                } finally {
+                    lock.readLock().unlock();
+                }
+            }
+        });
+    }
+
+    void shared(Runnable action) {
+        lock.readLock().lock();
+        try {
+            action.run();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    void exclusive(Runnable action) {
+        exclusiveGet(() -> {
+            action.run();
+            return null;
+        });
+    }
+
+    /**
+     * 在持有写锁时于当前事务中建立 tables 的数据库快照，并执行 action 记下同一时刻的内存状态。
+     * 快照靠对每张表按主键读一次（id = 0，不存在的行）建立：MySQL 在事务的首次一致性读时建立快照，
+     * H2 在事务首次访问各表时建立；之后在同一事务中的汇总查询都读这个快照。必须在事务中调用。
+     */
+    <T> T exclusiveSnapshot(EntityManager entityManager, Supplier<T> action, String... tables) {
+        String sql = Arrays.stream(tables)
+                .map(table -> "(SELECT COUNT(*) FROM " + table + " WHERE id = 0)")
+                .collect(Collectors.joining(" + ", "SELECT ", ""));
+        return exclusiveGet(() -> {
+            entityManager.createNativeQuery(sql).getSingleResult();
+            return action.get();
+        });
+    }
+
+    <T> T exclusiveGet(Supplier<T> action) {
+        lock.writeLock().lock();
+        try {
+            return action.get();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
@@ -0,0 +1,68 @@
+package com.bookadmin.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * total=approx 模式下按过滤条件缓存 COUNT 结果，过期时间即允许的最大陈旧度。
+ */
+@Component
+public class CountCache {
+
+    private static final int MAX_ENTRIES = 10000;
+
+    private final Map<String, Entry> entries = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+
+    public CountCache(@Value("${app.pagination.approx-count-ttl:30s}") Duration ttl) {
+        this.ttlNanos = ttl.toNanos();
+    }
+
+    public static String key(String list, Object... filters) {
+        return list + Arrays.stream(filters)
+                .map(String::valueOf)
+                .collect(Collectors.joining("\u0000", "\u0000", ""));
+    }
+
+    public long get(String key, Supplier<Long> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            return entry.count();
+        }
+        long count = loader.get();
+        put(key, count, now);
+        return count;
+    }
+
+    // 响应式查询使用：缓存未命中时订阅 loader，结果与同步查询共用同一份缓存
+    public Mono<Long> get(String key, Mono<Long> loader) {
+        long now = System.nanoTime();
+        Entry entry = entries.get(key);
+        if (entry != null && now - entry.loadedAt() < ttlNanos) {
+            return Mono.just(entry.count());
+        }
+        return loader.doOnNext(count -> put(key, count, now));
+    }
+
+    private void put(String key, long count, long now) {
+        if (entries.size() >= MAX_ENTRIES) {
+            entries.entrySet().removeIf(e -> now - e.getValue().loadedAt() >= ttlNanos);
+            if (entries.size() >= MAX_ENTRIES) {
+                entries.clear();
+            }
+        }
+        entries.put(key, new Entry(count, now));
+    }
+
+    private record Entry(long count, long loadedAt) {
+    }
+}
@@ -0,0 +1,166 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.UserDTO;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 图书、用户按ID/图书编号/用户名查找的近端缓存。
+ * 基于 Caffeine（W-TinyLFU 淘汰），按条数限制大小并设置过期时间，热点图书和读者留在内存里。
+ * 缓存的是 DTO 而不是实体，避免跨会话共享托管对象；写操作在当前事务中和事务结束后各失效一次，
+ * 防止并发读取在提交前把旧值重新放回缓存。命中率等统计同时注册到 Micrometer（cache.* 指标）。
+ */
+@Component
+public class LookupCache implements MeterBinder {
+
+    private final Cache<Long, BookDTO> books;
+    private final Cache<String, Long> bookIdsByBookNo;
+    private final Cache<Long, UserDTO> users;
+    private final Cache<String, Long> userIdsByName;
+
+    public LookupCache(@Value("${app.cache.lookup.maximum-size:10000}") long maximumSize,
+                       @Value("${app.cache.lookup.ttl:10m}") Duration ttl) {
+        this.books = build(maximumSize, ttl);
+        this.bookIdsByBookNo = build(maximumSize, ttl);
+        this.users = build(maximumSize, ttl);
+        this.userIdsByName = build(maximumSize, ttl);
+    }
+
+    private static <K, V> Cache<K, V> build(long maximumSize, Duration ttl) {
+        return Caffeine.newBuilder()
+                .maximumSize(maximumSize)
+                .expireAfterWrite(ttl)
+                .recordStats()
+                .build();
+    }
+
+    // loader 返回 null 表示不存在，不缓存
+    public BookDTO getBook(Long id, Function<Long, BookDTO> loader) {
+        return books.get(id, loader);
+    }
+
+    // 命中时返回缓存，未命中时用 loader 读取但不放入缓存
+    public BookDTO peekBook(Long id, Function<Long, BookDTO> loader) {
+        BookDTO book = books.getIfPresent(id);
+        return book != null ? book : loader.apply(id);
+    }
+
+    public BookDTO getBookByBookNo(String bookNo, Function<String, BookDTO> loader) {
+        Long id = bookIdsByBookNo.getIfPresent(bookNo);
+        if (id != null) {
+            BookDTO book = books.getIfPresent(id);
+            // 图书编号可能已被修改，命中后再核对一次
+            if (book != null && bookNo.equals(book.getBookNo())) {
+                return book;
+            }
+        }
+        BookDTO book = loader.apply(bookNo);
+        if (book != null) {
+            books.put(book.getId(), book);
+            bookIdsByBookNo.put(bookNo, book.getId());
+        }
+        return book;
+    }
+
+    public UserDTO getUser(Long id, Function<Long, UserDTO> loader) {
+        return users.get(id, loader);
+    }
+
+    public UserDTO getUserByName(String name, Function<String, UserDTO> loader) {
+        Long id = userIdsByName.getIfPresent(name);
+        if (id != null) {
+            UserDTO user = users.getIfPresent(id);
+            if (user != null && name.equals(user.getName())) {
+                return user;
+            }
+        }
+        UserDTO user = loader.apply(name);
+        if (user != null) {
+            users.put(user.getId(), user);
+            userIdsByName.put(name, user.getId());
+        }
+        return user;
+    }
+
+    // bookNos 传入修改前后的图书编号
+    public void evictBook(Long id, String... bookNos) {
+        evict(() -> {
+            books.invalidate(id);
+            for (String bookNo : bookNos) {
+                if (bookNo != null) {
+                    bookIdsByBookNo.invalidate(bookNo);
+                }
+            }
+        });
+    }
+
+    // 分类改名后图书 DTO 中的分类名过期
+    public void evictAllBooks() {
+        books.invalidateAll();
+    }
+
+    public void evictUser(Long id, String... names) {
+        evict(() -> {
+            users.invalidate(id);
+            for (String name : names) {
+                if (name != null) {
+                    userIdsByName.invalidate(name);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        CaffeineCacheMetrics.monitor(registry, books, "lookup.books");
+        CaffeineCacheMetrics.monitor(registry, bookIdsByBookNo, "lookup.bookNos");
+        CaffeineCacheMetrics.monitor(registry, users, "lookup.users");
+        CaffeineCacheMetrics.monitor(registry, userIdsByName, "lookup.userNames");
+    }
+
+    public Map<String, Map<String, Object>> getStats() {
+        Map<String, Map<String, Object>> stats = new LinkedHashMap<>();
+        stats.put("books", stats(books));
+        stats.put("bookNos", stats(bookIdsByBookNo));
+        stats.put("users", stats(users));
+        stats.put("userNames", stats(userIdsByName));
+        return stats;
+    }
+
+    private static Map<String, Object> stats(Cache<?, ?> cache) {
+        CacheStats stats = cache.stats();
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("size", cache.estimatedSize());
+        values.put("hits", stats.hitCount());
+        values.put("misses", stats.missCount());
+        values.put("hitRate", stats.hitRate());
+        values.put("evictions", stats.evictionCount());
+        return values;
+    }
+
+    private static void evict(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    action.run();
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.OverdueBorrowDTO;
+import com.bookadmin.dto.OverdueReport;
+import com.bookadmin.dto.OverdueUserDTO;
+import com.bookadmin.dto.PageResult;
+import com.bookadmin.repository.BorrowRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 逾期借阅集合。定时沿 (status, due_date, id) 索引分块扫描已到期的未还借阅，每块一个短查询，
+ * 只读逾期的那部分借阅，与历史借阅总量无关；结果连同每个读者的逾期数保存在内存快照中，查询不访问数据库。
+ * 归还、删除提交后立即从快照中移除，扫描之后才到期的借阅要等下一次扫描（app.borrow.overdue.scan-interval）。
+ */
+@Slf4j
+@Component
+public class OverdueBorrows implements MeterBinder {
+
+    private final BorrowRepository borrowRepository;
+    private final Duration loanPeriod;
+    private final int chunkSize;
+
+    private volatile Snapshot snapshot;
+    // 扫描期间提交的归还，扫描结束后从新快照中再移除一次
+    private final Set<Long> removedDuringScan = ConcurrentHashMap.newKeySet();
+    private final ReentrantLock scanLock = new ReentrantLock();
+
+    public OverdueBorrows(BorrowRepository borrowRepository,
+                          @Value("${app.borrow.loan-period:30d}") Duration loanPeriod,
+                          @Value("${app.borrow.overdue.chunk-size:1000}") int chunkSize) {
+        this.borrowRepository = borrowRepository;
+        this.loanPeriod = loanPeriod;
+        this.chunkSize = chunkSize;
+    }
+
+    // 按借期计算应还日期
+    public LocalDateTime dueDate(LocalDateTime borrowDate) {
+        return borrowDate.plus(loanPeriod);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(initialDelayString = "${app.borrow.overdue.scan-interval:PT5M}",
+               fixedDelayString = "${app.borrow.overdue.scan-interval:PT5M}")
+    public void scan() {
+        scanLock.lock();
+        try {
+            long start = System.nanoTime();
+            removedDuringScan.clear();
+            LocalDateTime now = LocalDateTime.now();
+            PageRequest page = PageRequest.of(0, chunkSize);
+            List<OverdueBorrowDTO> chunk = borrowRepository.findOverdue(now, page);
+            List<OverdueBorrowDTO> borrows = new ArrayList<>(chunk);
+            int chunks = 1;
+            while (chunk.size() == chunkSize) {
+                OverdueBorrowDTO last = chunk.get(chunk.size() - 1);
+                chunk = borrowRepository.findOverdueAfter(now, last.getDueDate(), last.getId(), page);
+                borrows.addAll(chunk);
+                chunks++;
+            }
+
+            Snapshot next = new Snapshot(now, borrows);
+            snapshot = next;
+            removedDuringScan.forEach(next::remove);
+            log.info("Overdue scan: {} borrows, {} users, {} chunks in {} ms", borrows.size(), next.counts.size(),
+                    chunks, (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            scanLock.unlock();
+        }
+    }
+
+    // 借阅归还或删除，提交后从逾期集合中移除
+    public void remove(Long borrowId) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    removeNow(borrowId);
+                }
+            });
+        } else {
+            removeNow(borrowId);
+        }
+    }
+
+    private void removeNow(Long borrowId) {
+        // 先登记再读快照：与扫描结束时的替换交错时，两边至少有一边会移除
+        removedDuringScan.add(borrowId);
+        Snapshot current = snapshot;
+        if (current != null) {
+            current.remove(borrowId);
+        }
+    }
+
+    // userId 不为空时只列出该读者的逾期借阅；借阅按应还日期升序分页，topUsers 按逾期数倒序
+    public OverdueReport getReport(Long userId, Integer current, Integer pageSize, Integer top) {
+        Snapshot snapshot = snapshot();
+        int offset = (current - 1) * pageSize;
+        List<OverdueBorrowDTO> rows = new ArrayList<>(pageSize + 1);
+        int skipped = 0;
+        for (OverdueBorrowDTO borrow : snapshot.borrows) {
+            if (snapshot.removed.contains(borrow.getId())
+                    || (userId != null && !userId.equals(borrow.getUserId()))) {
+                continue;
+            }
+            if (skipped++ < offset) {
+                continue;
+            }
+            rows.add(borrow);
+            if (rows.size() > pageSize) {
+                break;
+            }
+        }
+
+        long total = userId != null
+                ? snapshot.counts.getOrDefault(userId, 0)
+                : snapshot.borrows.size() - snapshot.removed.size();
+        List<OverdueUserDTO> topUsers = snapshot.counts.entrySet().stream()
+                .sorted(Map.Entry.<Long, Integer>comparingByValue().reversed()
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(top)
+                .map(entry -> {
+                    OverdueBorrowDTO sample = snapshot.userSamples.get(entry.getKey());
+                    return new OverdueUserDTO(entry.getKey(), sample.getUserName(), sample.getUserNickName(),
+                            entry.getValue());
+                })
+                .toList();
+        return new OverdueReport(snapshot.scannedAt, total, snapshot.counts.size(), topUsers,
+                PageResult.of(rows, total, current, pageSize));
+    }
+
+    private Snapshot snapshot() {
+        Snapshot current = snapshot;
+        if (current == null) {
+            scan();
+            current = snapshot;
+        }
+        return current;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("app.borrow.overdue", this,
+                        overdue -> overdue.snapshot != null
+                                ? overdue.snapshot.borrows.size() - overdue.snapshot.removed.size()
+                                : 0)
+                .description("Overdue active borrows as of the last scan")
+                .register(registry);
+    }
+
+    private static final class Snapshot {
+        private final LocalDateTime scannedAt;
+        // 按应还日期、ID 升序，扫描后不再修改
+        private final List<OverdueBorrowDTO> borrows;
+        private final Map<Long, OverdueBorrowDTO> byId;
+        // 每个读者取一条借阅用于展示姓名
+        private final Map<Long, OverdueBorrowDTO> userSamples;
+        // 扫描之后归还的借阅
+        private final Set<Long> removed = ConcurrentHashMap.newKeySet();
+        // 读者 -> 逾期未还数，归还时递减，减到 0 时移除
+        private final ConcurrentHashMap<Long, Integer> counts = new ConcurrentHashMap<>();
+
+        Snapshot(LocalDateTime scannedAt, List<OverdueBorrowDTO> borrows) {
+            this.scannedAt = scannedAt;
+            this.borrows = borrows;
+            this.byId = new HashMap<>(borrows.size() * 2);
+            this.userSamples = new HashMap<>();
+            for (OverdueBorrowDTO borrow : borrows) {
+                byId.put(borrow.getId(), borrow);
+                userSamples.putIfAbsent(borrow.getUserId(), borrow);
+                counts.merge(borrow.getUserId(), 1, Integer::sum);
+            }
+        }
+
+        void remove(Long borrowId) {
+            OverdueBorrowDTO borrow = byId.get(borrowId);
+            if (borrow != null && removed.add(borrowId)) {
+                counts.computeIfPresent(borrow.getUserId(), (userId, count) -> count > 1 ? count - 1 : null);
+            }
+        }
+    }
+}
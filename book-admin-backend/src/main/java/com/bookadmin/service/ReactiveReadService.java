@@ -0,0 +1,96 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.PageResult;
+import com.bookadmin.dto.UserDTO;
+import com.bookadmin.enums.BorrowStatus;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.UserStatus;
+import com.bookadmin.repository.ReactiveBookRepository;
+import com.bookadmin.repository.ReactiveBorrowRepository;
+import com.bookadmin.repository.ReactiveUserRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Optional;
+
+/**
+ * /api/reactive 下的只读列表：经 R2DBC 访问数据库，查询期间不占用请求线程。
+ * 过滤和 total 参数与阻塞版列表相同，approx 模式与阻塞版共用 CountCache；不走图书搜索索引，分页按 ID 升序。
+ */
+@Service
+@RequiredArgsConstructor
+public class ReactiveReadService {
+
+    private final ReactiveBookRepository reactiveBookRepository;
+    private final ReactiveBorrowRepository reactiveBorrowRepository;
+    private final ReactiveUserRepository reactiveUserRepository;
+    private final CountCache countCache;
+
+    public Mono<PageResult<BookDTO>> getBooks(String name, String author, String category,
+                                              Integer current, Integer pageSize, TotalMode totalMode) {
+        // 多取一行判断是否有下一页
+        Flux<BookDTO> rows = reactiveBookRepository.findByConditions(name, author, category,
+                offset(current, pageSize), pageSize + 1);
+        Mono<Long> total = switch (totalMode) {
+            case NONE -> Mono.empty();
+            case APPROX -> countCache.get(CountCache.key("books", name, author, category),
+                    reactiveBookRepository.countByConditions(name, author, category));
+            case EXACT -> reactiveBookRepository.countByConditions(name, author, category);
+        };
+        return page(rows, total, current, pageSize);
+    }
+
+    public Flux<BookDTO> streamBooks(String name, String author, String category) {
+        return reactiveBookRepository.findByConditions(name, author, category, 0, 0);
+    }
+
+    public Mono<PageResult<BorrowDTO>> getBorrows(String bookName, String userName, String author,
+                                                  BorrowStatus status, Integer current, Integer pageSize,
+                                                  TotalMode totalMode) {
+        Flux<BorrowDTO> rows = reactiveBorrowRepository.findByConditions(bookName, userName, author, status,
+                offset(current, pageSize), pageSize + 1);
+        Mono<Long> total = switch (totalMode) {
+            case NONE -> Mono.empty();
+            case APPROX -> countCache.get(CountCache.key("borrows", bookName, userName, author, status),
+                    reactiveBorrowRepository.countByConditions(bookName, userName, author, status));
+            case EXACT -> reactiveBorrowRepository.countByConditions(bookName, userName, author, status);
+        };
+        return page(rows, total, current, pageSize);
+    }
+
+    public Flux<BorrowDTO> streamBorrows(String bookName, String userName, String author, BorrowStatus status) {
+        return reactiveBorrowRepository.findByConditions(bookName, userName, author, status, 0, 0);
+    }
+
+    public Mono<PageResult<UserDTO>> getUsers(String name, UserStatus status, Integer current, Integer pageSize,
+                                              TotalMode totalMode) {
+        Flux<UserDTO> rows = reactiveUserRepository.findByConditions(name, status,
+                offset(current, pageSize), pageSize + 1);
+        Mono<Long> total = switch (totalMode) {
+            case NONE -> Mono.empty();
+            case APPROX -> countCache.get(CountCache.key("users", name, status),
+                    reactiveUserRepository.countByConditions(name, status));
+            case EXACT -> reactiveUserRepository.countByConditions(name, status);
+        };
+        return page(rows, total, current, pageSize);
+    }
+
+    public Flux<UserDTO> streamUsers(String name, UserStatus status) {
+        return reactiveUserRepository.findByConditions(name, status, 0, 0);
+    }
+
+    private static long offset(Integer current, Integer pageSize) {
+        return (long) (current - 1) * pageSize;
+    }
+
+    // total 为空 Mono 时（total=none）结果中 total、totalPages 为空
+    private static <T> Mono<PageResult<T>> page(Flux<T> rows, Mono<Long> total, Integer current, Integer pageSize) {
+        return rows.collectList()
+                .zipWith(total.map(Optional::of).defaultIfEmpty(Optional.empty()))
+                .map(tuple -> PageResult.of(tuple.getT1(), tuple.getT2().orElse(null), current, pageSize));
+    }
+}
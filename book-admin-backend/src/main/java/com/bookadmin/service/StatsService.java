@@ -0,0 +1,106 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.CategoryDTO;
+import com.bookadmin.dto.CirculationSeriesPoint;
+import com.bookadmin.dto.CirculationStatsDTO;
+import com.bookadmin.dto.RollupBackfillResult;
+import com.bookadmin.dto.StatsSummary;
+import com.bookadmin.dto.UserDTO;
+import com.bookadmin.enums.SeriesGranularity;
+import com.bookadmin.enums.StatsMetric;
+import com.bookadmin.service.CirculationStats.Scope;
+import io.micrometer.core.annotation.Timed;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 流通统计查询。计数和排行取自 CirculationStats 的内存计数，只为上榜的条目按 ID 取名称（走近端缓存）；
+ * 时间序列取自 CirculationRollup 的日汇总表。
+ */
+@Service
+@Timed("app.service")
+@RequiredArgsConstructor
+public class StatsService {
+
+    private static final int MAX_LIMIT = 100;
+
+    private final CirculationStats circulationStats;
+    private final CirculationRollup circulationRollup;
+    private final BookService bookService;
+    private final UserService userService;
+    private final CategoryTree categoryTree;
+
+    public StatsSummary getSummary() {
+        return new StatsSummary(
+                circulationStats.total(StatsMetric.BORROWS),
+                circulationStats.total(StatsMetric.ACTIVE),
+                circulationStats.total(StatsMetric.STOCKED),
+                circulationStats.getReconciledAt(),
+                circulationStats.getLastDrift());
+    }
+
+    public List<CirculationStatsDTO> getTopBooks(StatsMetric metric, Integer limit) {
+        return top(Scope.BOOK, metric, limit,
+                id -> bookService.findBookById(id).map(BookDTO::getName).orElse(null));
+    }
+
+    public List<CirculationStatsDTO> getTopCategories(StatsMetric metric, Integer limit) {
+        return top(Scope.CATEGORY, metric, limit, id -> {
+            CategoryDTO category = categoryTree.getById(id);
+            return category != null ? category.getName() : null;
+        });
+    }
+
+    public List<CirculationStatsDTO> getTopUsers(StatsMetric metric, Integer limit) {
+        if (metric == StatsMetric.STOCKED) {
+            throw new RuntimeException("Users have no stocked-in count");
+        }
+        return top(Scope.USER, metric, limit,
+                id -> userService.findUserById(id).map(UserDTO::getName).orElse(null));
+    }
+
+    public CirculationStatsDTO getBookStats(Long id) {
+        BookDTO book = bookService.getBookById(id);
+        return toDTO(Scope.BOOK, id, book.getName());
+    }
+
+    public CirculationStatsDTO getUserStats(Long id) {
+        UserDTO user = userService.getUserById(id);
+        return toDTO(Scope.USER, id, user.getName());
+    }
+
+    public StatsSummary reconcile() {
+        circulationStats.reconcile();
+        return getSummary();
+    }
+
+    public List<CirculationSeriesPoint> getSeries(LocalDate from, LocalDate to, SeriesGranularity granularity) {
+        return circulationRollup.getSeries(from, to, granularity);
+    }
+
+    public RollupBackfillResult backfillSeries(LocalDate from, LocalDate to) {
+        return circulationRollup.backfill(from, to);
+    }
+
+    private List<CirculationStatsDTO> top(Scope scope, StatsMetric metric, Integer limit,
+                                          Function<Long, String> names) {
+        if (limit < 1 || limit > MAX_LIMIT) {
+            throw new RuntimeException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+        return circulationStats.top(scope, metric, limit).stream()
+                .map(count -> toDTO(scope, count.id(), names.apply(count.id())))
+                .toList();
+    }
+
+    private CirculationStatsDTO toDTO(Scope scope, Long id, String name) {
+        return new CirculationStatsDTO(id, name,
+                circulationStats.get(scope, StatsMetric.BORROWS, id),
+                circulationStats.get(scope, StatsMetric.ACTIVE, id),
+                scope != Scope.USER ? circulationStats.get(scope, StatsMetric.STOCKED, id) : null);
+    }
+}
@@ -1,37 +1,99 @@
 package com.bookadmin.service;
 
 import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.CursorPageResult;
+import com.bookadmin.dto.PageCursor;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.dto.StockRecordDTO;
+import com.bookadmin.dto.StockRecordSignature;
 import com.bookadmin.dto.UserDTO;
 import com.bookadmin.entity.Book;
 import com.bookadmin.entity.StockRecord;
 import com.bookadmin.entity.User;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
+import com.bookadmin.enums.UserRole;
+import com.bookadmin.export.TableWriter;
 import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.FieldProjection;
 import com.bookadmin.repository.StockRecordRepository;
 import com.bookadmin.repository.UserRepository;
+import com.bookadmin.storage.BlobStore;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.StringUtils;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("app.service")
 @RequiredArgsConstructor
 @Transactional
 public class StockRecordService {
     
+    private static final String DEFAULT_SIGNATURE_TYPE = "image/png";
+    // 签名与页面同源返回，不接受可携带脚本的 SVG 等类型
+    private static final Set<String> SIGNATURE_TYPES = Set.of("image/png", "image/jpeg", "image/gif", "image/webp");
+    private static final int EXPORT_CLEAR_INTERVAL = 1000;
+    
+    // fields= 可选字段；签名图片地址依赖记录是否有签名，不在可选范围内，需要时查详情
+    private static final FieldProjection<StockRecord> FIELDS = FieldProjection.of(StockRecord.class)
+            .field("stockQuantity")
+            .field("remarks")
+            .field("createdAt")
+            .field("version")
+            .field("book.id")
+            .field("book.name")
+            .field("book.author")
+            .field("book.bookNo")
+            .field("admin.id")
+            .field("admin.name")
+            .field("admin.nickName");
+    
     private final StockRecordRepository stockRecordRepository;
     private final BookRepository bookRepository;
     private final UserRepository userRepository;
+    private final BookStockService bookStockService;
+    private final BookService bookService;
+    private final UserService userService;
+    private final ChangeCounters changeCounters;
+    private final CountCache countCache;
+    private final CirculationStats circulationStats;
+    private final CirculationRollup circulationRollup;
+    private final EntityManager entityManager;
+    private final BlobStore blobStore;
     
     public PageResult<StockRecordDTO> getStockRecords(String bookName, String adminName, 
-                                                     Integer current, Integer pageSize) {
+                                                     Integer current, Integer pageSize, TotalMode totalMode) {
         Pageable pageable = PageRequest.of(current - 1, pageSize);
+        if (totalMode != TotalMode.EXACT) {
+            Slice<StockRecord> stockRecordSlice = stockRecordRepository.findSliceByConditions(bookName, adminName, pageable);
+            Long total = totalMode == TotalMode.APPROX
+                    ? countCache.get(CountCache.key("stock-records", bookName, adminName),
+                            () -> stockRecordRepository.countByConditions(bookName, adminName))
+                    : null;
+            return PageResult.of(stockRecordSlice, total, current, pageSize, this::convertToDTO);
+        }
+        
         Page<StockRecord> stockRecordPage = stockRecordRepository.findByConditions(bookName, adminName, pageable);
         
         List<StockRecordDTO> stockRecordDTOs = stockRecordPage.getContent().stream()
@@ -47,59 +109,180 @@ public class StockRecordService {
         );
     }
     
+    // 只查询 fields 指定的列，过滤、分页与 getStockRecords 相同
+    public PageResult<Map<String, Object>> getStockRecordFields(String fields, String bookName, String adminName,
+                                                                Integer current, Integer pageSize,
+                                                                TotalMode totalMode) {
+        List<String> names = FIELDS.parse(fields);
+        Long total = switch (totalMode) {
+            case EXACT -> stockRecordRepository.countByConditions(bookName, adminName);
+            case APPROX -> countCache.get(CountCache.key("stock-records", bookName, adminName),
+                    () -> stockRecordRepository.countByConditions(bookName, adminName));
+            case NONE -> null;
+        };
+        List<Map<String, Object>> rows = FIELDS.find(entityManager, names, conditions(bookName, adminName),
+                (current - 1) * pageSize, pageSize + 1);
+        return PageResult.of(rows, total, current, pageSize);
+    }
+    
+    // 与 StockRecordRepository.findByConditions 相同的过滤条件
+    private static Specification<StockRecord> conditions(String bookName, String adminName) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (bookName != null) {
+                predicates.add(cb.like(FieldProjection.path(root, "book.name"), "%" + bookName + "%"));
+            }
+            if (adminName != null) {
+                predicates.add(cb.like(FieldProjection.path(root, "admin.name"), "%" + adminName + "%"));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    public CursorPageResult<StockRecordDTO> getStockRecordsAfter(String bookName, String adminName,
+                                                                 String after, Integer pageSize) {
+        PageCursor cursor = PageCursor.decode(after);
+        List<StockRecord> stockRecords = stockRecordRepository.findByConditionsAfter(
+                bookName, adminName,
+                cursor != null ? cursor.getSortKeyAsDateTime() : null,
+                cursor != null ? cursor.getId() : null,
+                PageRequest.of(0, pageSize + 1));
+        
+        return CursorPageResult.of(stockRecords, pageSize,
+                stockRecord -> PageCursor.of(stockRecord.getCreatedAt(), stockRecord.getId()), this::convertToDTO);
+    }
+    
+    @Transactional(readOnly = true)
+    public void exportStockRecords(String bookName, String adminName, TableWriter writer) {
+        writer.writeRow("书籍名称", "入库数量", "管理员", "备注", "入库时间");
+        int[] count = {0};
+        try (Stream<StockRecord> stockRecords = stockRecordRepository.streamByConditions(bookName, adminName)) {
+            stockRecords.forEach(stockRecord -> {
+                writer.writeRow(
+                        stockRecord.getBook().getName(),
+                        stockRecord.getStockQuantity(),
+                        stockRecord.getAdmin().getNickName(),
+                        stockRecord.getRemarks(),
+                        stockRecord.getCreatedAt());
+                // 定期清空持久化上下文，保持内存占用恒定
+                if (++count[0] % EXPORT_CLEAR_INTERVAL == 0) {
+                    entityManager.clear();
+                }
+            });
+        }
+    }
+    
     public StockRecordDTO getStockRecordById(Long id) {
         StockRecord stockRecord = stockRecordRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Stock record not found"));
         return convertToDTO(stockRecord);
     }
     
+    // JSON 创建：签名沿用前端传来的 data URL（Base64），转存到 BlobStore
     public StockRecordDTO createStockRecord(StockRecordDTO stockRecordDTO) {
-        Book book = bookRepository.findById(stockRecordDTO.getBook().getId())
-                .orElseThrow(() -> new RuntimeException("Book not found"));
+        String signatureImage = stockRecordDTO.getSignatureImage();
+        if (!StringUtils.hasText(signatureImage)) {
+            return createStockRecord(stockRecordDTO, null, null);
+        }
         
-        User admin = userRepository.findById(stockRecordDTO.getAdmin().getId())
+        String type = DEFAULT_SIGNATURE_TYPE;
+        String data = signatureImage;
+        if (signatureImage.startsWith("data:")) {
+            int comma = signatureImage.indexOf(',');
+            if (comma < 0 || !signatureImage.substring(0, comma).endsWith(";base64")) {
+                throw new RuntimeException("Signature must be a base64 data URL");
+            }
+            type = signatureImage.substring("data:".length(), comma - ";base64".length());
+            data = signatureImage.substring(comma + 1);
+        }
+        byte[] bytes;
+        try {
+            bytes = Base64.getMimeDecoder().decode(data);
+        } catch (IllegalArgumentException e) {
+            throw new RuntimeException("Signature must be a base64 data URL");
+        }
+        return createStockRecord(stockRecordDTO, new ByteArrayInputStream(bytes), type);
+    }
+    
+    // multipart 创建：签名文件直接从上传流写入 BlobStore
+    public StockRecordDTO createStockRecord(StockRecordDTO stockRecordDTO, InputStream signature,
+                                            String signatureType) {
+        changeCounters.touch(TrackedTable.STOCK_RECORDS);
+        Long bookId = stockRecordDTO.getBook().getId();
+        UserDTO admin = userService.findUserById(stockRecordDTO.getAdmin().getId())
                 .orElseThrow(() -> new RuntimeException("Admin not found"));
         
         // 检查管理员权限
-        if (!"admin".equals(admin.getRole().toString())) {
+        if (admin.getRole() != UserRole.ADMIN) {
             throw new RuntimeException("Only admin can create stock records");
         }
         
+        if (stockRecordDTO.getStockQuantity() == null || stockRecordDTO.getStockQuantity() <= 0) {
+            throw new RuntimeException("Stock quantity must be positive");
+        }
+        
+        // 更新图书库存
+        if (!bookStockService.increase(bookId, stockRecordDTO.getStockQuantity())) {
+            throw new RuntimeException("Book not found");
+        }
+        
         StockRecord stockRecord = new StockRecord();
-        stockRecord.setBook(book);
-        stockRecord.setAdmin(admin);
+        stockRecord.setBook(bookRepository.getReferenceById(bookId));
+        stockRecord.setAdmin(userRepository.getReferenceById(admin.getId()));
         stockRecord.setStockQuantity(stockRecordDTO.getStockQuantity());
-        stockRecord.setSignatureImage(stockRecordDTO.getSignatureImage());
+        if (signature != null) {
+            String type = StringUtils.hasText(signatureType) ? signatureType : DEFAULT_SIGNATURE_TYPE;
+            if (!SIGNATURE_TYPES.contains(type)) {
+                throw new RuntimeException("Signature must be an image");
+            }
+            try {
+                stockRecord.setSignatureHash(blobStore.put(signature));
+            } catch (IOException e) {
+                // 转成非受检异常，让事务回滚已增加的库存
+                throw new UncheckedIOException(e);
+            }
+            stockRecord.setSignatureType(type);
+        }
         stockRecord.setRemarks(stockRecordDTO.getRemarks());
         
-        // 更新图书库存
-        book.setStock(book.getStock() + stockRecordDTO.getStockQuantity());
-        bookRepository.save(book);
-        
         StockRecord savedStockRecord = stockRecordRepository.save(stockRecord);
-        return convertToDTO(savedStockRecord);
+        // 库存已在本事务中修改，读取结果不放入缓存
+        BookDTO book = bookService.findBookByIdUncached(bookId)
+                .orElseThrow(() -> new RuntimeException("Book not found"));
+        circulationStats.stocked(bookId, book.getCategoryId(), stockRecord.getStockQuantity());
+        circulationRollup.stocked(savedStockRecord.getCreatedAt(), stockRecord.getStockQuantity());
+        return convertToDTO(savedStockRecord, book, admin);
+    }
+    
+    @Transactional(readOnly = true)
+    public StockRecordSignature getSignature(Long id) {
+        Object[] row = stockRecordRepository.findSignatureById(id).stream()
+                .findFirst()
+                .orElseThrow(() -> new RuntimeException("Stock record not found"));
+        if (row[0] == null) {
+            throw new RuntimeException("Signature not found");
+        }
+        return new StockRecordSignature((String) row[0], (String) row[1]);
     }
     
     public void deleteStockRecord(Long id) {
+        changeCounters.touch(TrackedTable.STOCK_RECORDS);
         StockRecord stockRecord = stockRecordRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("Stock record not found"));
         
-        // 恢复图书库存
-        Book book = stockRecord.getBook();
-        book.setStock(book.getStock() - stockRecord.getStockQuantity());
-        bookRepository.save(book);
+        // 恢复图书库存：已借出的部分无法撤销入库
+        if (!bookStockService.decrease(stockRecord.getBook().getId(), stockRecord.getStockQuantity())) {
+            throw new RuntimeException("Not enough stock to revert stock record");
+        }
         
         stockRecordRepository.deleteById(id);
+        Long bookId = stockRecord.getBook().getId();
+        circulationStats.stocked(bookId, bookService.findBookByIdUncached(bookId).map(BookDTO::getCategoryId).orElse(null),
+                -stockRecord.getStockQuantity());
+        circulationRollup.stocked(stockRecord.getCreatedAt(), -stockRecord.getStockQuantity());
     }
     
     private StockRecordDTO convertToDTO(StockRecord stockRecord) {
-        StockRecordDTO dto = new StockRecordDTO();
-        dto.setId(stockRecord.getId());
-        dto.setStockQuantity(stockRecord.getStockQuantity());
-        dto.setSignatureImage(stockRecord.getSignatureImage());
-        dto.setRemarks(stockRecord.getRemarks());
-        dto.setCreatedAt(stockRecord.getCreatedAt());
-        
         // 转换Book
         Book book = stockRecord.getBook();
         BookDTO bookDTO = new BookDTO();
@@ -111,12 +294,13 @@ public class StockRecordService {
         bookDTO.setPublishAt(book.getPublishAt());
         bookDTO.setBookNo(book.getBookNo());
         bookDTO.setCover(book.getCover());
-        bookDTO.setStock(book.getStock());
+        bookDTO.setStock(book.getAvailableStock());
+        bookDTO.setStockStripes(book.getStockStripes());
+        bookDTO.setVersion(book.getVersion());
         if (book.getCategory() != null) {
             bookDTO.setCategory(book.getCategory().getName());
             bookDTO.setCategoryId(book.getCategory().getId());
         }
-        dto.setBook(bookDTO);
         
         // 转换Admin
         User admin = stockRecord.getAdmin();
@@ -128,8 +312,24 @@ public class StockRecordService {
         adminDTO.setStatus(admin.getStatus());
         adminDTO.setSex(admin.getSex());
         adminDTO.setCreatedAt(admin.getCreatedAt());
-        dto.setAdmin(adminDTO);
+        adminDTO.setVersion(admin.getVersion());
         
+        return convertToDTO(stockRecord, bookDTO, adminDTO);
+    }
+    
+    private StockRecordDTO convertToDTO(StockRecord stockRecord, BookDTO book, UserDTO admin) {
+        StockRecordDTO dto = new StockRecordDTO();
+        dto.setId(stockRecord.getId());
+        dto.setStockQuantity(stockRecord.getStockQuantity());
+        // 列表只返回签名地址，图片由 /api/stock-records/{id}/signature 单独下载
+        if (stockRecord.getSignatureHash() != null) {
+            dto.setSignatureImage("/api/stock-records/" + stockRecord.getId() + "/signature");
+        }
+        dto.setRemarks(stockRecord.getRemarks());
+        dto.setCreatedAt(stockRecord.getCreatedAt());
+        dto.setVersion(stockRecord.getVersion());
+        dto.setBook(book);
+        dto.setAdmin(admin);
         return dto;
     }
 }
@@ -1,29 +1,61 @@
 package com.bookadmin.service;
 
+import com.bookadmin.dto.CursorPageResult;
+import com.bookadmin.dto.PageCursor;
 import com.bookadmin.dto.PageResult;
 import com.bookadmin.dto.UserDTO;
 import com.bookadmin.entity.User;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.enums.TrackedTable;
 import com.bookadmin.enums.UserStatus;
+import com.bookadmin.repository.FieldProjection;
 import com.bookadmin.repository.UserRepository;
+import io.micrometer.core.annotation.Timed;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.criteria.Predicate;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
+@Timed("app.service")
 @RequiredArgsConstructor
 @Transactional
 public class UserService {
     
+    // fields= 可选字段，名称与 UserDTO 一致
+    private static final FieldProjection<User> FIELDS = FieldProjection.of(User.class)
+            .field("name")
+            .field("nickName")
+            .field("role")
+            .field("status")
+            .field("sex")
+            .field("createdAt")
+            .field("version");
+    
     private final UserRepository userRepository;
+    private final CountCache countCache;
+    private final EntityManager entityManager;
+    private final LookupCache lookupCache;
+    private final ChangeCounters changeCounters;
     
     public PageResult<UserDTO> getUsers(String name, UserStatus status, 
-                                       Integer current, Integer pageSize, Boolean all) {
+                                       Integer current, Integer pageSize, Boolean all, TotalMode totalMode) {
         if (Boolean.TRUE.equals(all)) {
             List<User> users = userRepository.findAll();
             List<UserDTO> userDTOs = users.stream()
@@ -33,6 +65,15 @@ public class UserService {
         }
         
         Pageable pageable = PageRequest.of(current - 1, pageSize);
+        if (totalMode != TotalMode.EXACT) {
+            Slice<User> userSlice = userRepository.findSliceByConditions(name, status, pageable);
+            Long total = totalMode == TotalMode.APPROX
+                    ? countCache.get(CountCache.key("users", name, status),
+                            () -> userRepository.countByConditions(name, status))
+                    : null;
+            return PageResult.of(userSlice, total, current, pageSize, this::convertToDTO);
+        }
+        
         Page<User> userPage = userRepository.findByConditions(name, status, pageable);
         
         List<UserDTO> userDTOs = userPage.getContent().stream()
@@ -48,21 +89,93 @@ public class UserService {
         );
     }
     
+    // 只查询 fields 指定的列，过滤、分页与 getUsers 相同
+    public PageResult<Map<String, Object>> getUserFields(String fields, String name, UserStatus status,
+                                                         Integer current, Integer pageSize, Boolean all,
+                                                         TotalMode totalMode) {
+        List<String> names = FIELDS.parse(fields);
+        if (Boolean.TRUE.equals(all)) {
+            List<Map<String, Object>> rows = FIELDS.find(entityManager, names, null, 0, 0);
+            return new PageResult<>(rows, (long) rows.size(), current, pageSize, 1);
+        }
+        
+        Long total = switch (totalMode) {
+            case EXACT -> userRepository.countByConditions(name, status);
+            case APPROX -> countCache.get(CountCache.key("users", name, status),
+                    () -> userRepository.countByConditions(name, status));
+            case NONE -> null;
+        };
+        List<Map<String, Object>> rows = FIELDS.find(entityManager, names, conditions(name, status),
+                (current - 1) * pageSize, pageSize + 1);
+        return PageResult.of(rows, total, current, pageSize);
+    }
+    
+    // 与 UserRepository.findByConditions 相同的过滤条件
+    private static Specification<User> conditions(String name, UserStatus status) {
+        return (root, query, cb) -> {
+            List<Predicate> predicates = new ArrayList<>();
+            if (name != null) {
+                predicates.add(cb.like(root.get("name"), "%" + name + "%"));
+            }
+            if (status != null) {
+                predicates.add(cb.equal(root.get("status"), status));
+            }
+            return cb.and(predicates.toArray(new Predicate[0]));
+        };
+    }
+    
+    public CursorPageResult<UserDTO> getUsersAfter(String name, UserStatus status, String after, Integer pageSize) {
+        PageCursor cursor = PageCursor.decode(after);
+        List<User> users = userRepository.findByConditionsAfter(
+                name, status, cursor != null ? cursor.getId() : 0L, PageRequest.of(0, pageSize + 1));
+        
+        return CursorPageResult.of(users, pageSize, user -> PageCursor.of(user.getId()), this::convertToDTO);
+    }
+    
+    // 逐条转换并交给调用方写出，转换后立即从持久化上下文中移除，内存占用与总行数无关
+    @Transactional(readOnly = true)
+    public void streamUsers(Consumer<UserDTO> consumer) {
+        try (Stream<User> users = userRepository.streamAll()) {
+            users.forEach(user -> {
+                consumer.accept(convertToDTO(user));
+                entityManager.detach(user);
+            });
+        }
+    }
+    
     public UserDTO getUserById(Long id) {
-        User user = userRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("User not found"));
-        return convertToDTO(user);
+        return findUserById(id).orElseThrow(() -> new RuntimeException("User not found"));
+    }
+    
+    public Optional<UserDTO> findUserById(Long id) {
+        return Optional.ofNullable(lookupCache.getUser(id,
+                key -> userRepository.findById(key).map(this::convertToDTO).orElse(null)));
+    }
+    
+    public UserDTO getUserByName(String name) {
+        UserDTO user = lookupCache.getUserByName(name,
+                key -> userRepository.findByName(key).map(this::convertToDTO).orElse(null));
+        if (user == null) {
+            throw new RuntimeException("User not found");
+        }
+        return user;
     }
     
     public UserDTO createUser(UserDTO userDTO) {
+        changeCounters.touch(TrackedTable.USERS);
         User user = convertToEntity(userDTO);
         User savedUser = userRepository.save(user);
         return convertToDTO(savedUser);
     }
     
     public UserDTO updateUser(Long id, UserDTO userDTO) {
+        changeCounters.touch(TrackedTable.USERS);
         User existingUser = userRepository.findById(id)
                 .orElseThrow(() -> new RuntimeException("User not found"));
+        if (userDTO.getVersion() != null && !userDTO.getVersion().equals(existingUser.getVersion())) {
+            throw new ResponseStatusException(HttpStatus.CONFLICT, "User has been modified");
+        }
+        lookupCache.evictUser(id, existingUser.getName(), userDTO.getName());
         
         existingUser.setName(userDTO.getName());
         existingUser.setNickName(userDTO.getNickName());
@@ -70,11 +183,13 @@ public class UserService {
         existingUser.setStatus(userDTO.getStatus());
         existingUser.setSex(userDTO.getSex());
         
-        User savedUser = userRepository.save(existingUser);
+        User savedUser = userRepository.saveAndFlush(existingUser);
         return convertToDTO(savedUser);
     }
     
     public void deleteUser(Long id) {
+        changeCounters.touch(TrackedTable.USERS);
+        lookupCache.evictUser(id);
         userRepository.deleteById(id);
     }
     
@@ -87,6 +202,7 @@ public class UserService {
         dto.setStatus(user.getStatus());
         dto.setSex(user.getSex());
         dto.setCreatedAt(user.getCreatedAt());
+        dto.setVersion(user.getVersion());
         return dto;
     }
     
@@ -0,0 +1,93 @@
+package com.bookadmin.storage;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.regex.Pattern;
+
+/**
+ * 本地磁盘上的内容寻址存储：文件按内容的 SHA-256 命名（ab/cd/abcd...），相同内容只存一份，
+ * 数据库里只保存哈希。文件写入后不再修改，可以放心地长期缓存。
+ */
+@Component
+public class BlobStore {
+
+    private static final Pattern HASH = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tmp;
+
+    public BlobStore(@Value("${app.blob-store.path:data/blobs}") String path) throws IOException {
+        this.root = Paths.get(path).toAbsolutePath();
+        this.tmp = root.resolve("tmp");
+        Files.createDirectories(tmp);
+    }
+
+    // 边写临时文件边计算哈希，写完后原子改名到哈希路径；同样的内容已存在时直接复用
+    public String put(InputStream in) throws IOException {
+        Path temp = Files.createTempFile(tmp, "blob-", ".tmp");
+        try {
+            MessageDigest digest = sha256();
+            try (OutputStream out = new DigestOutputStream(Files.newOutputStream(temp), digest)) {
+                in.transferTo(out);
+            }
+            String hash = HexFormat.of().formatHex(digest.digest());
+            Path target = path(hash);
+            if (!Files.exists(target)) {
+                Files.createDirectories(target.getParent());
+                Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+            return hash;
+        } finally {
+            Files.deleteIfExists(temp);
+        }
+    }
+
+    public boolean exists(String hash) {
+        return Files.exists(path(hash));
+    }
+
+    public long size(String hash) throws IOException {
+        return Files.size(path(hash));
+    }
+
+    // 用 FileChannel.transferTo 写出，文件内容不经过堆内存
+    public void transferTo(String hash, WritableByteChannel target) throws IOException {
+        try (FileChannel channel = FileChannel.open(path(hash), StandardOpenOption.READ)) {
+            long size = channel.size();
+            long position = 0;
+            while (position < size) {
+                position += channel.transferTo(position, size - position, target);
+            }
+        }
+    }
+
+    private Path path(String hash) {
+        if (hash == null || !HASH.matcher(hash).matches()) {
+            throw new IllegalArgumentException("Invalid blob hash: " + hash);
+        }
+        return root.resolve(hash.substring(0, 2)).resolve(hash.substring(2, 4)).resolve(hash);
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.bookadmin.controller;
+
+import com.bookadmin.entity.Book;
+import com.bookadmin.entity.Borrow;
+import com.bookadmin.entity.StockRecord;
+import com.bookadmin.entity.User;
+import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.BorrowRepository;
+import com.bookadmin.repository.StockRecordRepository;
+import com.bookadmin.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import static com.bookadmin.metrics.QueryBudget.assertMaxQueries;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 固定列表和详情接口的查询预算：映射里新增的懒加载关联（N+1）会让对应用例失败，并给出重复最多的语句。
+ * 列表预算为一条分页查询加一条 COUNT，与页大小无关。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class EndpointQueryBudgetTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private StockRecordRepository stockRecordRepository;
+
+    private Long bookId;
+    private Long userId;
+    private Long borrowId;
+    private Long stockRecordId;
+
+    @BeforeEach
+    void setUp() {
+        Book book = bookRepository.findAll().get(0);
+        User user = userRepository.findAll().get(0);
+        bookId = book.getId();
+        userId = user.getId();
+        borrowId = borrowRepository.findAll().get(0).getId();
+        // 初始数据没有入库记录
+        stockRecordId = stockRecordRepository.findAll().stream()
+                .findFirst()
+                .orElseGet(() -> {
+                    StockRecord stockRecord = new StockRecord();
+                    stockRecord.setBook(book);
+                    stockRecord.setAdmin(user);
+                    stockRecord.setStockQuantity(1);
+                    return stockRecordRepository.save(stockRecord);
+                })
+                .getId();
+    }
+
+    @Test
+    void books() throws Exception {
+        assertMaxQueries(2, () -> mockMvc.perform(get("/api/books").param("pageSize", "100"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(2, () -> mockMvc.perform(get("/api/books").param("pageSize", "100").param("fields", "name,author,category"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(1, () -> mockMvc.perform(get("/api/books/{id}", bookId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void users() throws Exception {
+        assertMaxQueries(2, () -> mockMvc.perform(get("/api/users").param("pageSize", "100"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(1, () -> mockMvc.perform(get("/api/users/{id}", userId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void borrows() throws Exception {
+        assertMaxQueries(2, () -> mockMvc.perform(get("/api/borrows").param("pageSize", "100"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(2, () -> mockMvc.perform(get("/api/borrows").param("pageSize", "100").param("fields", "book.name,user.name,status"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(1, () -> mockMvc.perform(get("/api/borrows").param("after", "").param("pageSize", "100"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(4, () -> mockMvc.perform(get("/api/borrows/{id}", borrowId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void stockRecords() throws Exception {
+        assertMaxQueries(2, () -> mockMvc.perform(get("/api/stock-records").param("pageSize", "100"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(1, () -> mockMvc.perform(get("/api/stock-records").param("after", "").param("pageSize", "100"))
+                .andExpect(status().isOk()));
+        assertMaxQueries(4, () -> mockMvc.perform(get("/api/stock-records/{id}", stockRecordId))
+                .andExpect(status().isOk()));
+    }
+
+    @Test
+    void categories() throws Exception {
+        // 分类树常驻内存，不查询数据库
+        assertMaxQueries(0, () -> mockMvc.perform(get("/api/categories"))
+                .andExpect(status().isOk()));
+    }
+}
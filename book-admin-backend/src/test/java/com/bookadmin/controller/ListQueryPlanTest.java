@@ -0,0 +1,117 @@
+package com.bookadmin.controller;
+
+import com.bookadmin.entity.Book;
+import com.bookadmin.entity.Borrow;
+import com.bookadmin.entity.StockRecord;
+import com.bookadmin.entity.User;
+import com.bookadmin.enums.BorrowStatus;
+import com.bookadmin.enums.UserRole;
+import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.BorrowRepository;
+import com.bookadmin.repository.StockRecordRepository;
+import com.bookadmin.repository.UserRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.bookadmin.metrics.QueryBudget.assertQueries;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * 借阅、入库记录列表的查询计划：关联在分页查询里一次取回，语句数与页大小无关。
+ * 精确总数为分页查询加 COUNT 两条，total=none 和游标分页只有分页查询一条。
+ */
+@SpringBootTest
+@AutoConfigureMockMvc
+class ListQueryPlanTest {
+
+    // 多于最大页大小，每种页大小都是整页，精确总数时都会执行 COUNT
+    private static final int ROWS = 150;
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private StockRecordRepository stockRecordRepository;
+
+    @BeforeEach
+    void setUp() {
+        List<Book> books = bookRepository.findAll();
+        List<User> users = userRepository.findAll();
+        List<User> admins = users.stream().filter(user -> user.getRole() == UserRole.ADMIN).toList();
+
+        // 每行关联不同的图书、读者，懒加载时每行都会多出查询
+        List<Borrow> borrows = new ArrayList<>();
+        for (long i = borrowRepository.count(); i < ROWS; i++) {
+            Borrow borrow = new Borrow();
+            borrow.setBook(books.get((int) (i % books.size())));
+            borrow.setUser(users.get((int) (i % users.size())));
+            borrow.setStatus(BorrowStatus.OFF);
+            borrow.setDueDate(LocalDateTime.now().plusDays(30));
+            borrow.setReturnDate(LocalDateTime.now());
+            borrows.add(borrow);
+        }
+        borrowRepository.saveAll(borrows);
+
+        List<StockRecord> stockRecords = new ArrayList<>();
+        for (long i = stockRecordRepository.count(); i < ROWS; i++) {
+            StockRecord stockRecord = new StockRecord();
+            stockRecord.setBook(books.get((int) (i % books.size())));
+            stockRecord.setAdmin(admins.get((int) (i % admins.size())));
+            stockRecord.setStockQuantity(1);
+            stockRecords.add(stockRecord);
+        }
+        stockRecordRepository.saveAll(stockRecords);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20, 100})
+    void borrows(int pageSize) throws Exception {
+        assertQueries(2, () -> mockMvc.perform(get("/api/borrows").param("pageSize", String.valueOf(pageSize)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(pageSize)));
+        assertQueries(1, () -> mockMvc.perform(get("/api/borrows").param("pageSize", String.valueOf(pageSize))
+                        .param("total", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(pageSize)));
+        assertQueries(1, () -> mockMvc.perform(get("/api/borrows").param("pageSize", String.valueOf(pageSize))
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(pageSize)));
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 20, 100})
+    void stockRecords(int pageSize) throws Exception {
+        assertQueries(2, () -> mockMvc.perform(get("/api/stock-records").param("pageSize", String.valueOf(pageSize)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(pageSize)));
+        assertQueries(1, () -> mockMvc.perform(get("/api/stock-records").param("pageSize", String.valueOf(pageSize))
+                        .param("total", "none"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(pageSize)));
+        assertQueries(1, () -> mockMvc.perform(get("/api/stock-records").param("pageSize", String.valueOf(pageSize))
+                        .param("after", ""))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.data.length()").value(pageSize)));
+    }
+}
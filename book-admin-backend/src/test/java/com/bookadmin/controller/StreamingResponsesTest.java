@@ -0,0 +1,52 @@
+package com.bookadmin.controller;
+
+import com.bookadmin.enums.StreamFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 流式 JSON 中途失败时输出保持不完整，不会被补成合法的数组；未知的 stream 参数直接报错。
+ */
+class StreamingResponsesTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    @Test
+    void completeArray() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body(StreamFormat.JSON, items -> {
+            items.accept(Map.of("id", 1));
+            items.accept(Map.of("id", 2));
+        }).writeTo(out);
+        assertEquals("[{\"id\":1},{\"id\":2}]", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void failedArrayIsNotClosed() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalStateException.class, () -> body(StreamFormat.JSON, items -> {
+            items.accept(Map.of("id", 1));
+            throw new IllegalStateException("connection lost");
+        }).writeTo(out));
+        assertEquals("[{\"id\":1}", out.toString(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    void unknownFormatIsRejected() {
+        assertEquals(StreamFormat.NDJSON, StreamFormat.from("ndjson"));
+        assertThrows(RuntimeException.class, () -> StreamFormat.from("jsn"));
+    }
+
+    private StreamingResponseBody body(StreamFormat format, Consumer<Consumer<Map<String, Integer>>> source) {
+        return StreamingResponses.json(objectMapper, format, source).getBody();
+    }
+}
@@ -0,0 +1,65 @@
+package com.bookadmin.export;
+
+import com.bookadmin.enums.ExportFormat;
+import org.apache.poi.xssf.usermodel.XSSFWorkbook;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 导出失败时不能输出一个看起来完整的文件；CSV 中用户输入的公式前缀被转义。
+ */
+class TableExportsTest {
+
+    private static final Consumer<TableWriter> FAILING = writer -> {
+        writer.writeRow("书名", "作者");
+        writer.writeRow("红楼梦", "曹雪芹");
+        throw new IllegalStateException("connection lost");
+    };
+
+    @Test
+    void failedXlsxExportWritesNothing() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalStateException.class, () -> body(ExportFormat.XLSX, FAILING).writeTo(out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void failedCsvExportIsNotFlushed() {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThrows(IllegalStateException.class, () -> body(ExportFormat.CSV, FAILING).writeTo(out));
+        assertEquals(0, out.size());
+    }
+
+    @Test
+    void xlsxExportIsWrittenAfterAllRows() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body(ExportFormat.XLSX, writer -> {
+            writer.writeRow("书名", "库存");
+            writer.writeRow("红楼梦", 3);
+        }).writeTo(out);
+        try (XSSFWorkbook workbook = new XSSFWorkbook(new ByteArrayInputStream(out.toByteArray()))) {
+            assertEquals(1, workbook.getSheetAt(0).getLastRowNum());
+        }
+    }
+
+    @Test
+    void csvEscapesFormulaPrefixes() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        body(ExportFormat.CSV, writer -> writer.writeRow("=HYPERLINK(\"x\")", "+1", "-2", "@SUM(A1)", -3, "a-b"))
+                .writeTo(out);
+        assertEquals("\uFEFF\"'=HYPERLINK(\"\"x\"\")\",'+1,'-2,'@SUM(A1),-3,a-b\r\n",
+                out.toString(StandardCharsets.UTF_8));
+    }
+
+    private static StreamingResponseBody body(ExportFormat format, Consumer<TableWriter> source) {
+        return TableExports.response("图书列表", format, source).getBody();
+    }
+}
@@ -0,0 +1,59 @@
+package com.bookadmin.metrics;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+/**
+ * 测试里固定接口的查询预算：
+ * <pre>
+ * QueryBudget.assertMaxQueries(3, () -> mockMvc.perform(get("/api/borrows")));
+ * </pre>
+ * MockMvc 在调用线程上执行请求，请求内的 SQL 都会计入；超出预算时抛出 AssertionError 并给出重复最多的语句。
+ */
+public final class QueryBudget {
+
+    private QueryBudget() {
+    }
+
+    public static <T> T assertMaxQueries(int max, Callable<T> action) throws Exception {
+        SqlStatementStats stats = SqlStatementCounter.start();
+        T result;
+        try {
+            result = action.call();
+        } finally {
+            SqlStatementCounter.stop(stats);
+        }
+        if (stats.getCount() > max) {
+            throw new AssertionError("Expected at most " + max + " SQL statements but " + describe(stats));
+        }
+        return result;
+    }
+
+    public static void assertMaxQueries(int max, Runnable action) throws Exception {
+        assertMaxQueries(max, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // 恰好执行 expected 条语句，用于固定与数据量、页大小无关的查询计划
+    public static <T> T assertQueries(int expected, Callable<T> action) throws Exception {
+        SqlStatementStats stats = SqlStatementCounter.start();
+        T result;
+        try {
+            result = action.call();
+        } finally {
+            SqlStatementCounter.stop(stats);
+        }
+        if (stats.getCount() != expected) {
+            throw new AssertionError("Expected " + expected + " SQL statements but " + describe(stats));
+        }
+        return result;
+    }
+
+    private static String describe(SqlStatementStats stats) {
+        Map.Entry<String, Integer> repeated = stats.getMostRepeated();
+        return stats.getCount() + " were executed"
+                + (repeated != null ? "; most repeated (" + repeated.getValue() + "x): " + repeated.getKey() : "");
+    }
+}
@@ -0,0 +1,61 @@
+package com.bookadmin.service;
+
+import com.bookadmin.entity.Book;
+import com.bookadmin.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 重建索引时不持有锁：构建期间的新增、修改、删除不会被阻塞，并在替换前重放到新索引上。
+ */
+class BookSearchIndexTest {
+
+    @Test
+    void changesDuringRebuildAreNotBlockedAndAreReplayed() {
+        BookRepository bookRepository = mock(BookRepository.class);
+        BookSearchIndex index = new BookSearchIndex(bookRepository);
+        when(bookRepository.findSearchRowsAfter(anyLong(), any(Pageable.class))).thenAnswer(invocation -> {
+            if ((Long) invocation.getArgument(0) > 0) {
+                return List.of();
+            }
+            // 在另一个线程中提交修改：重建若持有写锁，这里会等到超时
+            CompletableFuture.runAsync(() -> {
+                index.remove(1L);
+                index.index(book(2L, "水浒传"));
+                index.index(book(3L, "三国演义"));
+            }).get(5, TimeUnit.SECONDS);
+            // 构建读到的仍是修改前的数据
+            return List.of(new Object[]{1L, "红楼梦", "曹雪芹", null}, new Object[]{2L, "西游记", "吴承恩", null});
+        });
+
+        index.rebuild();
+
+        assertEquals(List.of(), search(index, "红楼"));
+        assertEquals(List.of(), search(index, "西游"));
+        assertEquals(List.of(2L), search(index, "水浒"));
+        assertEquals(List.of(3L), search(index, "三国"));
+        assertEquals(List.of(2L, 3L), search(index, null));
+    }
+
+    private static List<Long> search(BookSearchIndex index, String name) {
+        return index.search(name, null, null, 0, 10).getIds();
+    }
+
+    private static Book book(Long id, String name) {
+        Book book = new Book();
+        book.setId(id);
+        book.setName(name);
+        book.setAuthor("测试");
+        return book;
+    }
+}
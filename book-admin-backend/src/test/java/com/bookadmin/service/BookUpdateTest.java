@@ -0,0 +1,59 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.entity.Book;
+import com.bookadmin.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 修改图书：带旧版本号的提交返回 409，不会覆盖别人的修改；库存为空时直接拒绝。
+ */
+@SpringBootTest
+class BookUpdateTest {
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void staleVersionIsRejected() {
+        BookDTO edit = bookService.getBookById(newBook("BK-VERSION").getId());
+        edit.setName("第一次修改");
+        BookDTO updated = bookService.updateBook(edit.getId(), edit);
+        assertEquals(edit.getVersion() + 1, updated.getVersion());
+
+        // 另一个客户端仍持有修改前的版本号
+        edit.setName("第二次修改");
+        ResponseStatusException e = assertThrows(ResponseStatusException.class,
+                () -> bookService.updateBook(edit.getId(), edit));
+        assertEquals(HttpStatus.CONFLICT, e.getStatusCode());
+        assertEquals("第一次修改", bookRepository.findById(edit.getId()).orElseThrow().getName());
+    }
+
+    @Test
+    void missingStockIsRejected() {
+        BookDTO edit = bookService.getBookById(newBook("BK-NULL-STOCK").getId());
+        edit.setStock(null);
+        RuntimeException e = assertThrows(RuntimeException.class, () -> bookService.updateBook(edit.getId(), edit));
+        assertEquals("Stock must not be negative", e.getMessage());
+        assertEquals(5, bookRepository.findById(edit.getId()).orElseThrow().getStock());
+    }
+
+    private Book newBook(String bookNo) {
+        Book book = new Book();
+        book.setName("版本测试");
+        book.setAuthor("测试");
+        book.setBookNo(bookNo);
+        book.setStock(5);
+        return bookRepository.save(book);
+    }
+}
@@ -0,0 +1,220 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.UserDTO;
+import com.bookadmin.entity.Book;
+import com.bookadmin.entity.User;
+import com.bookadmin.enums.BorrowStatus;
+import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.BookStockSlotRepository;
+import com.bookadmin.repository.BorrowRepository;
+import com.bookadmin.repository.UserRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 同一本书的并发借阅：条件 UPDATE 扣减库存，不会超借，也不会出现负库存。
+ * 分片库存在借阅、归还、删除与调整分片数并发时，在架库存加未还借阅的总数保持不变。
+ */
+@Slf4j
+@SpringBootTest
+class BorrowConcurrencyTest {
+
+    private static final int STOCK = 50;
+    private static final int BORROWS = 300;
+    private static final int THREADS = 32;
+    private static final int STRIPED_OPERATIONS = 600;
+    private static final int[] STRIPES = {0, 2, 4, 8, 16};
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private BorrowRepository borrowRepository;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BookStockSlotRepository bookStockSlotRepository;
+
+    @Test
+    void concurrentBorrowsNeverOversell() throws Exception {
+        Book book = new Book();
+        book.setName("并发借阅测试");
+        book.setAuthor("测试");
+        book.setBookNo("BK-CONCURRENCY");
+        book.setStock(STOCK);
+        Long bookId = bookRepository.save(book).getId();
+        List<User> users = userRepository.findAll();
+
+        AtomicInteger succeeded = new AtomicInteger();
+        ConcurrentHashMap<String, Integer> failures = new ConcurrentHashMap<>();
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>(BORROWS);
+        for (int i = 0; i < BORROWS; i++) {
+            BorrowDTO borrowDTO = new BorrowDTO();
+            borrowDTO.setBook(new BookDTO());
+            borrowDTO.getBook().setId(bookId);
+            borrowDTO.setUser(new UserDTO());
+            borrowDTO.getUser().setId(users.get(i % users.size()).getId());
+            futures.add(executor.submit(() -> {
+                start.await();
+                try {
+                    borrowService.createBorrow(borrowDTO);
+                    succeeded.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failures.merge(String.valueOf(e.getMessage()), 1, Integer::sum);
+                }
+                return null;
+            }));
+        }
+
+        long startedAt = System.nanoTime();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        long elapsedNanos = System.nanoTime() - startedAt;
+        executor.shutdown();
+        log.info("{} concurrent borrows of one book ({} threads): {} succeeded, failures {}, {} ms, {} borrows/s",
+                BORROWS, THREADS, succeeded.get(), failures, TimeUnit.NANOSECONDS.toMillis(elapsedNanos),
+                String.format("%.0f", BORROWS * 1e9 / elapsedNanos));
+
+        // 只有库存不足一种失败，成功数恰好等于库存
+        assertEquals(STOCK, succeeded.get());
+        assertEquals(Map.of("Book is out of stock", BORROWS - STOCK), failures);
+
+        Book after = bookRepository.findById(bookId).orElseThrow();
+        assertEquals(0, after.getStock());
+        assertTrue(after.getAvailableStock() >= 0);
+        long active = borrowRepository.findAll().stream()
+                .filter(borrow -> borrow.getBook().getId().equals(bookId) && borrow.getStatus() == BorrowStatus.ON)
+                .count();
+        assertEquals(STOCK, active);
+    }
+
+    @Test
+    void restripingConservesStock() throws Exception {
+        Book book = new Book();
+        book.setName("分片借阅测试");
+        book.setAuthor("测试");
+        book.setBookNo("BK-RESTRIPE");
+        book.setStock(STOCK);
+        Long bookId = bookRepository.save(book).getId();
+        bookService.stripeStock(bookId, 4);
+        List<User> users = userRepository.findAll();
+
+        // 借出的借阅供归还、删除使用；已归还的也可以删除
+        ConcurrentLinkedQueue<Long> open = new ConcurrentLinkedQueue<>();
+        ConcurrentLinkedQueue<Long> closed = new ConcurrentLinkedQueue<>();
+        ConcurrentHashMap<String, Integer> operations = new ConcurrentHashMap<>();
+        ConcurrentHashMap<String, Integer> failures = new ConcurrentHashMap<>();
+        AtomicInteger restripes = new AtomicInteger();
+        AtomicBoolean running = new AtomicBoolean(true);
+        CountDownLatch start = new CountDownLatch(1);
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS + 1);
+
+        Future<?> restriper = executor.submit(() -> {
+            start.await();
+            while (running.get()) {
+                try {
+                    bookService.stripeStock(bookId, STRIPES[ThreadLocalRandom.current().nextInt(STRIPES.length)]);
+                    restripes.incrementAndGet();
+                } catch (RuntimeException e) {
+                    failures.merge("restripe: " + e.getClass().getSimpleName(), 1, Integer::sum);
+                }
+            }
+            return null;
+        });
+
+        List<Future<?>> futures = new ArrayList<>(STRIPED_OPERATIONS);
+        for (int i = 0; i < STRIPED_OPERATIONS; i++) {
+            Long userId = users.get(i % users.size()).getId();
+            futures.add(executor.submit(() -> {
+                start.await();
+                int choice = ThreadLocalRandom.current().nextInt(10);
+                String operation = choice < 5 ? "borrow" : choice < 8 ? "return" : "delete";
+                try {
+                    if (operation.equals("borrow")) {
+                        BorrowDTO borrowDTO = new BorrowDTO();
+                        borrowDTO.setBook(new BookDTO());
+                        borrowDTO.getBook().setId(bookId);
+                        borrowDTO.setUser(new UserDTO());
+                        borrowDTO.getUser().setId(userId);
+                        open.add(borrowService.createBorrow(borrowDTO).getId());
+                    } else if (operation.equals("return")) {
+                        Long borrowId = open.poll();
+                        if (borrowId != null) {
+                            borrowService.returnBook(borrowId);
+                            closed.add(borrowId);
+                        }
+                    } else {
+                        Long borrowId = ThreadLocalRandom.current().nextBoolean() ? open.poll() : closed.poll();
+                        if (borrowId != null) {
+                            borrowService.deleteBorrow(borrowId);
+                        }
+                    }
+                    operations.merge(operation, 1, Integer::sum);
+                } catch (RuntimeException e) {
+                    // 库存不足、与调整分片数冲突被数据库回滚的操作不改变库存
+                    failures.merge(operation + ": " + e.getMessage(), 1, Integer::sum);
+                }
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        running.set(false);
+        restriper.get(1, TimeUnit.MINUTES);
+        executor.shutdown();
+        log.info("{} striped borrow/return/delete operations with {} restripes: succeeded {}, failures {}",
+                STRIPED_OPERATIONS, restripes.get(), operations, failures);
+
+        Book after = bookRepository.findById(bookId).orElseThrow();
+        long active = borrowRepository.findAll().stream()
+                .filter(borrow -> borrow.getBook().getId().equals(bookId) && borrow.getStatus() == BorrowStatus.ON)
+                .count();
+        assertTrue(restripes.get() > 0);
+        assertTrue(after.getAvailableStock() >= 0);
+        assertEquals(STOCK, after.getAvailableStock() + active);
+        // 分片状态一致：分片时 books.stock 不再使用，分片行数等于分片数
+        long slots = bookStockSlotRepository.countByBookId(bookId);
+        if (after.getStockStripes() == null) {
+            assertEquals(0, slots);
+        } else {
+            assertEquals(0, after.getStock());
+            assertEquals(after.getStockStripes().longValue(), slots);
+        }
+    }
+}
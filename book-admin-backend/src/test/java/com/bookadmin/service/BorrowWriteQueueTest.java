@@ -0,0 +1,42 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BorrowDTO;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 组提交写线程：一批里抛出 Error 时只让这一批失败，写线程继续处理后面的命令。
+ */
+class BorrowWriteQueueTest {
+
+    @Test
+    void errorFailsOnlyItsBatch() throws Exception {
+        BorrowService borrowService = mock(BorrowService.class);
+        BorrowDTO borrow = new BorrowDTO();
+        when(borrowService.tryReturnBook(1L)).thenThrow(new StackOverflowError());
+        when(borrowService.tryReturnBook(2L)).thenReturn(BorrowService.WriteResult.ok(borrow));
+
+        BorrowWriteQueue queue = new BorrowWriteQueue(borrowService, mock(PlatformTransactionManager.class),
+                true, 16, 1);
+        try {
+            CompletableFuture<BorrowDTO> failed = queue.returnBook(1L);
+            CompletableFuture<BorrowDTO> next = queue.returnBook(2L);
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> failed.get(5, TimeUnit.SECONDS));
+            assertInstanceOf(StackOverflowError.class, e.getCause());
+            assertSame(borrow, next.get(5, TimeUnit.SECONDS));
+        } finally {
+            queue.stop();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.CursorPageResult;
+import com.bookadmin.repository.BookRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 游标分页：索引中还有、数据库里已删除的图书不会让翻页提前结束；其他列表的游标不能用于按时间排序的列表。
+ */
+@SpringBootTest
+class CursorPageTest {
+
+    private static final String NAME = "游标分页测试";
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private StockRecordService stockRecordService;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Test
+    void deletedBooksDoNotEndPaging() {
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            BookDTO book = new BookDTO();
+            book.setName(NAME + i);
+            book.setAuthor("测试");
+            book.setBookNo("BK-CURSOR-" + i);
+            book.setStock(1);
+            ids.add(bookService.createBook(book).getId());
+        }
+        // 绕过 BookService 删除，模拟查询索引与读取图书之间被删除
+        bookRepository.deleteById(ids.get(1));
+
+        CursorPageResult<BookDTO> first = bookService.getBooksAfter(NAME, null, null, null, 2);
+        assertEquals(List.of(ids.get(0)), first.getData().stream().map(BookDTO::getId).toList());
+        assertTrue(first.getHasNext());
+
+        CursorPageResult<BookDTO> second = bookService.getBooksAfter(NAME, null, null, first.getNextCursor(), 2);
+        assertEquals(List.of(ids.get(2), ids.get(3)), second.getData().stream().map(BookDTO::getId).toList());
+        assertFalse(second.getHasNext());
+    }
+
+    @Test
+    void cursorWithoutSortKeyIsRejected() {
+        String bookCursor = bookService.getBooksAfter(null, null, null, null, 1).getNextCursor();
+        RuntimeException e = assertThrows(RuntimeException.class,
+                () -> borrowService.getBorrowsAfter(null, null, null, null, bookCursor, 10));
+        assertEquals("Invalid cursor", e.getMessage());
+        e = assertThrows(RuntimeException.class,
+                () -> stockRecordService.getStockRecordsAfter(null, null, bookCursor, 10));
+        assertEquals("Invalid cursor", e.getMessage());
+    }
+}
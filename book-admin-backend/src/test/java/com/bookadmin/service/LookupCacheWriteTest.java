@@ -0,0 +1,94 @@
+package com.bookadmin.service;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.StockRecordDTO;
+import com.bookadmin.dto.UserDTO;
+import com.bookadmin.entity.Book;
+import com.bookadmin.enums.UserRole;
+import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.UserRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * 借阅、入库修改库存后组装返回结果时不能把未提交的库存放入近端缓存：事务提交前其他请求会读到它，回滚后更是错误的值。
+ */
+@SpringBootTest
+class LookupCacheWriteTest {
+
+    @Autowired
+    private BorrowService borrowService;
+
+    @Autowired
+    private StockRecordService stockRecordService;
+
+    @Autowired
+    private BookService bookService;
+
+    @Autowired
+    private LookupCache lookupCache;
+
+    @Autowired
+    private BookRepository bookRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Test
+    void borrowDoesNotCacheUncommittedStock() {
+        Long bookId = newBook("BK-CACHE-BORROW");
+        transactionTemplate.executeWithoutResult(status -> {
+            BorrowDTO borrowDTO = new BorrowDTO();
+            borrowDTO.setBook(new BookDTO());
+            borrowDTO.getBook().setId(bookId);
+            borrowDTO.setUser(new UserDTO());
+            borrowDTO.getUser().setId(userRepository.findAll().get(0).getId());
+            borrowService.createBorrow(borrowDTO);
+
+            assertNull(lookupCache.peekBook(bookId, id -> null));
+            status.setRollbackOnly();
+        });
+        assertEquals(3, bookService.getBookById(bookId).getStock());
+    }
+
+    @Test
+    void stockRecordDoesNotCacheUncommittedStock() {
+        Long bookId = newBook("BK-CACHE-STOCK");
+        Long adminId = userRepository.findAll().stream()
+                .filter(user -> user.getRole() == UserRole.ADMIN)
+                .findFirst()
+                .orElseThrow()
+                .getId();
+        transactionTemplate.executeWithoutResult(status -> {
+            StockRecordDTO stockRecordDTO = new StockRecordDTO();
+            stockRecordDTO.setBook(new BookDTO());
+            stockRecordDTO.getBook().setId(bookId);
+            stockRecordDTO.setAdmin(new UserDTO());
+            stockRecordDTO.getAdmin().setId(adminId);
+            stockRecordDTO.setStockQuantity(10);
+            stockRecordService.createStockRecord(stockRecordDTO);
+
+            assertNull(lookupCache.peekBook(bookId, id -> null));
+            status.setRollbackOnly();
+        });
+        assertEquals(3, bookService.getBookById(bookId).getStock());
+    }
+
+    private Long newBook(String bookNo) {
+        Book book = new Book();
+        book.setName("缓存测试");
+        book.setAuthor("测试");
+        book.setBookNo(bookNo);
+        book.setStock(3);
+        return bookRepository.save(book).getId();
+    }
+}
@@ -0,0 +1,45 @@
+package com.bookadmin.benchmark;
+
+import com.bookadmin.BookAdminBackendApplication;
+import org.springframework.aop.framework.AopProxyUtils;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.context.ConfigurableApplicationContext;
+
+/**
+ * 以非 Web 方式启动后端，使用内存 H2，通过 seed 配置文件（SeedDataGenerator）按给定规模灌入数据；
+ * 关闭 SQL 输出和调试日志，避免日志成为瓶颈。
+ */
+public final class BenchmarkContext {
+
+    private BenchmarkContext() {
+    }
+
+    public static ConfigurableApplicationContext start(int books, int users, int borrows) {
+        SpringApplication application = new SpringApplication(BookAdminBackendApplication.class);
+        application.setWebApplicationType(WebApplicationType.NONE);
+        application.setBannerMode(Banner.Mode.OFF);
+        return application.run(
+                "--spring.profiles.active=seed",
+                "--seed.books=" + books,
+                "--seed.users=" + users,
+                "--seed.borrows=" + borrows,
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.com.bookadmin=info",
+                "--logging.level.org.springframework.web=warn",
+                "--app.sql-stats.debug-header=false");
+    }
+
+    // 取 Spring 代理背后的对象，调用私有方法时需要
+    @SuppressWarnings("unchecked")
+    public static <T> T target(T bean) {
+        Object target = bean;
+        Object next;
+        while ((next = AopProxyUtils.getSingletonTarget(target)) != null) {
+            target = next;
+        }
+        return (T) target;
+    }
+}
@@ -0,0 +1,72 @@
+package com.bookadmin.benchmark;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.PageResult;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.service.BookService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 图书列表在各种过滤组合下的吞吐量（第一页，每页 20 条）。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class BookQueryBenchmark {
+
+    @Param("10000")
+    private int books;
+
+    @Param({"none", "name", "author", "category", "name+author", "name+author+category"})
+    private String filter;
+
+    @Param({"exact", "none"})
+    private String total;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private String name;
+    private String author;
+    private String category;
+    private TotalMode totalMode;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(books, 1000, 0);
+        bookService = context.getBean(BookService.class);
+        Set<String> filters = Set.of(filter.split("\\+"));
+        name = filters.contains("name") ? "时间" : null;
+        author = filters.contains("author") ? "王" : null;
+        category = filters.contains("category") ? "历史" : null;
+        totalMode = TotalMode.from(total);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResult<BookDTO> getBooks() {
+        return bookService.getBooks(name, author, category, 1, 20, false, totalMode);
+    }
+}
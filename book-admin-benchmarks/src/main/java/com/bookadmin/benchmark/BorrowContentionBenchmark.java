@@ -0,0 +1,79 @@
+package com.bookadmin.benchmark;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.UserDTO;
+import com.bookadmin.service.BookService;
+import com.bookadmin.service.BorrowService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程借还同一本热门图书：每次操作借出再归还。stripes=0 为单行库存，大于 1 时开启分片库存，
+ * 对比行锁争用对吞吐量的影响；线程数用 -t 调整。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(8)
+public class BorrowContentionBenchmark {
+
+    private static final long HOT_BOOK_ID = 1L;
+
+    @Param({"0", "2", "4", "8", "16"})
+    private int stripes;
+
+    @Param("1000")
+    private int users;
+
+    private ConfigurableApplicationContext context;
+    private BorrowService borrowService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1000, users, 0);
+        borrowService = context.getBean(BorrowService.class);
+        // 库存足够大，测量期间不会借空
+        context.getBean(JdbcTemplate.class).update("UPDATE books SET stock = 1000000 WHERE id = ?", HOT_BOOK_ID);
+        context.getBean(BookService.class).stripeStock(HOT_BOOK_ID, stripes);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public BorrowDTO borrowAndReturn() {
+        BorrowDTO request = new BorrowDTO();
+        BookDTO book = new BookDTO();
+        book.setId(HOT_BOOK_ID);
+        UserDTO user = new UserDTO();
+        user.setId(1L + ThreadLocalRandom.current().nextInt(users));
+        request.setBook(book);
+        request.setUser(user);
+
+        BorrowDTO borrow = borrowService.createBorrow(request);
+        return borrowService.returnBook(borrow.getId());
+    }
+}
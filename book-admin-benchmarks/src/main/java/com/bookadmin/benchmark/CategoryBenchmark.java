@@ -0,0 +1,66 @@
+package com.bookadmin.benchmark;
+
+import com.bookadmin.dto.CategoryDTO;
+import com.bookadmin.service.CategoryService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 分类读取：树、平铺列表、按层级，以及预先序列化好的 JSON。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class CategoryBenchmark {
+
+    private ConfigurableApplicationContext context;
+    private CategoryService categoryService;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(1000, 100, 0);
+        categoryService = context.getBean(CategoryService.class);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public List<CategoryDTO> tree() {
+        return categoryService.getCategories(null, null);
+    }
+
+    @Benchmark
+    public List<CategoryDTO> all() {
+        return categoryService.getCategories(null, true);
+    }
+
+    @Benchmark
+    public List<CategoryDTO> level() {
+        return categoryService.getCategories(2, null);
+    }
+
+    @Benchmark
+    public byte[] treeJson() {
+        return categoryService.getCategoriesJson(null, null);
+    }
+}
@@ -0,0 +1,101 @@
+package com.bookadmin.benchmark;
+
+import com.bookadmin.entity.Book;
+import com.bookadmin.entity.Borrow;
+import com.bookadmin.entity.User;
+import com.bookadmin.repository.BookRepository;
+import com.bookadmin.repository.BorrowRepository;
+import com.bookadmin.repository.UserRepository;
+import com.bookadmin.service.BookService;
+import com.bookadmin.service.BorrowService;
+import com.bookadmin.service.UserService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.data.domain.PageRequest;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 各 Service 的 convertToDTO 转换开销，不含查询：实体在准备阶段一次性加载（借阅带上图书、分类和读者），
+ * 每次调用转换 100 条。转换方法是私有的，通过 MethodHandle 在代理背后的对象上调用。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    private static final int ROWS = 100;
+
+    private ConfigurableApplicationContext context;
+    private List<Book> books;
+    private List<User> users;
+    private List<Borrow> borrows;
+    private MethodHandle bookMapper;
+    private MethodHandle userMapper;
+    private MethodHandle borrowMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        context = BenchmarkContext.start(1000, 1000, 1000);
+        books = context.getBean(BookRepository.class).findAll(PageRequest.of(0, ROWS)).getContent();
+        users = context.getBean(UserRepository.class).findAll(PageRequest.of(0, ROWS)).getContent();
+        borrows = context.getBean(BorrowRepository.class)
+                .findByConditions(null, null, null, null, PageRequest.of(0, ROWS)).getContent();
+
+        bookMapper = mapper(context.getBean(BookService.class), Book.class);
+        userMapper = mapper(context.getBean(UserService.class), User.class);
+        borrowMapper = mapper(context.getBean(BorrowService.class), Borrow.class);
+    }
+
+    private static MethodHandle mapper(Object service, Class<?> entityClass) throws ReflectiveOperationException {
+        Object target = BenchmarkContext.target(service);
+        Class<?> type = target.getClass();
+        return MethodHandles.privateLookupIn(type, MethodHandles.lookup())
+                .unreflect(type.getDeclaredMethod("convertToDTO", entityClass))
+                .bindTo(target);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public void books(Blackhole blackhole) throws Throwable {
+        for (Book book : books) {
+            blackhole.consume(bookMapper.invoke(book));
+        }
+    }
+
+    @Benchmark
+    public void users(Blackhole blackhole) throws Throwable {
+        for (User user : users) {
+            blackhole.consume(userMapper.invoke(user));
+        }
+    }
+
+    @Benchmark
+    public void borrows(Blackhole blackhole) throws Throwable {
+        for (Borrow borrow : borrows) {
+            blackhole.consume(borrowMapper.invoke(borrow));
+        }
+    }
+}
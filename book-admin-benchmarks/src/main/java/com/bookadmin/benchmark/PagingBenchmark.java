@@ -0,0 +1,102 @@
+package com.bookadmin.benchmark;
+
+import com.bookadmin.dto.BookDTO;
+import com.bookadmin.dto.BorrowDTO;
+import com.bookadmin.dto.CursorPageResult;
+import com.bookadmin.dto.PageCursor;
+import com.bookadmin.dto.PageResult;
+import com.bookadmin.enums.TotalMode;
+import com.bookadmin.service.BookService;
+import com.bookadmin.service.BorrowService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 深分页：同一页号下偏移分页（exact/none 两种总数模式）与游标分页的对比。
+ * 图书列表走搜索索引，借阅列表走数据库 OFFSET。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PagingBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param("10000")
+    private int books;
+
+    @Param("20000")
+    private int borrows;
+
+    @Param({"1", "50", "400"})
+    private int page;
+
+    private ConfigurableApplicationContext context;
+    private BookService bookService;
+    private BorrowService borrowService;
+    private String bookCursor;
+    private String borrowCursor;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        context = BenchmarkContext.start(books, 1000, borrows);
+        bookService = context.getBean(BookService.class);
+        borrowService = context.getBean(BorrowService.class);
+
+        // 图书 ID 连续，第 page 页的游标就是前一页最后一条的 ID
+        bookCursor = page > 1 ? PageCursor.of((long) (page - 1) * PAGE_SIZE).encode() : "";
+        // 借阅按借阅时间倒序，逐页翻到目标页取得游标
+        borrowCursor = "";
+        for (int i = 1; i < page; i++) {
+            borrowCursor = borrowService.getBorrowsAfter(null, null, null, null, borrowCursor, PAGE_SIZE)
+                    .getNextCursor();
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        context.close();
+    }
+
+    @Benchmark
+    public PageResult<BookDTO> booksOffset() {
+        return bookService.getBooks(null, null, null, page, PAGE_SIZE, false, TotalMode.EXACT);
+    }
+
+    @Benchmark
+    public CursorPageResult<BookDTO> booksCursor() {
+        return bookService.getBooksAfter(null, null, null, bookCursor, PAGE_SIZE);
+    }
+
+    @Benchmark
+    public PageResult<BorrowDTO> borrowsOffsetExact() {
+        return borrowService.getBorrows(null, null, null, null, page, PAGE_SIZE, TotalMode.EXACT);
+    }
+
+    @Benchmark
+    public PageResult<BorrowDTO> borrowsOffsetNoTotal() {
+        return borrowService.getBorrows(null, null, null, null, page, PAGE_SIZE, TotalMode.NONE);
+    }
+
+    @Benchmark
+    public CursorPageResult<BorrowDTO> borrowsCursor() {
+        return borrowService.getBorrowsAfter(null, null, null, null, borrowCursor, PAGE_SIZE);
+    }
+}
@@ -0,0 +1,253 @@
+package com.bookadmin.loadtest;
+
+import com.bookadmin.config.ZipfSampler;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 闭环压测：固定数量的客户端各自循环“挑一个操作 -> 发请求并等待响应 -> 等待思考时间”，
+ * 并发量由客户端数决定，服务端变慢时请求速率随之下降。预热期间的请求不计入延迟统计，
+ * 但成功的借阅、归还、入库都记入账目，供结束后核对库存。
+ */
+@Slf4j
+public class LoadGenerator {
+
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(30);
+
+    private final LoadTestOptions options;
+    private final OperationMix mix;
+    private final String baseUrl;
+    private final ExecutorService executor;
+    private final HttpClient client;
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ZipfSampler books;
+    // 入库操作使用的管理员
+    private final long adminId;
+
+    // 未归还的借阅，归还操作从这里取
+    private final ConcurrentLinkedQueue<Long> openBorrows = new ConcurrentLinkedQueue<>();
+    private final Map<Operation, OperationStats> stats = new EnumMap<>(Operation.class);
+
+    // 成功的写操作，包含预热期间
+    private final LongAdder borrowed = new LongAdder();
+    private final LongAdder returned = new LongAdder();
+    private final LongAdder stocked = new LongAdder();
+    // 连接或读取失败的请求，这些请求可能已经在服务端生效
+    private final LongAdder transportErrors = new LongAdder();
+
+    public LoadGenerator(LoadTestOptions options, int port, long adminId, Collection<Long> openBorrowIds) {
+        this.options = options;
+        this.mix = new OperationMix(options.getMix());
+        this.baseUrl = "http://localhost:" + port;
+        this.executor = Executors.newFixedThreadPool(Math.max(Runtime.getRuntime().availableProcessors(), 4));
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(REQUEST_TIMEOUT)
+                .executor(executor)
+                .build();
+        this.books = new ZipfSampler(options.getBooks(), options.getSkew());
+        this.adminId = adminId;
+        this.openBorrows.addAll(openBorrowIds);
+        for (Operation operation : Operation.values()) {
+            stats.put(operation, new OperationStats());
+        }
+    }
+
+    public void run() throws InterruptedException {
+        long start = System.nanoTime();
+        long measureFrom = start + TimeUnit.SECONDS.toNanos(options.getWarmup());
+        long end = measureFrom + TimeUnit.SECONDS.toNanos(options.getDuration());
+
+        log.info("Load test: {} clients, mix {}, think time {} ms, warmup {} s, duration {} s",
+                options.getConcurrency(), mix.getWeights(), options.getThinkTime(),
+                options.getWarmup(), options.getDuration());
+        CountDownLatch finished = new CountDownLatch(options.getConcurrency());
+        for (int i = 0; i < options.getConcurrency(); i++) {
+            new Client(new Random(42L * 31 + i), measureFrom, end, finished).next();
+        }
+        try {
+            if (!finished.await(options.getWarmup() + options.getDuration() + 120L, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("Load test clients did not finish");
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    /**
+     * 一个闭环客户端：上一个请求完成（并等待思考时间）后才发下一个。请求异步发送，
+     * 客户端不占用线程，上万个并发连接也只需要 HttpClient 的少量线程。
+     */
+    private final class Client {
+        private final Random random;
+        private final long measureFrom;
+        private final long end;
+        private final CountDownLatch finished;
+
+        Client(Random random, long measureFrom, long end, CountDownLatch finished) {
+            this.random = random;
+            this.measureFrom = measureFrom;
+            this.end = end;
+            this.finished = finished;
+        }
+
+        void next() {
+            long now = System.nanoTime();
+            if (now >= end) {
+                finished.countDown();
+                return;
+            }
+            Operation picked = mix.next(random);
+            Long borrowId = null;
+            if (picked == Operation.RETURN) {
+                borrowId = openBorrows.poll();
+                if (borrowId == null) {
+                    // 没有可归还的借阅时改为借阅，保持客户端数不变
+                    picked = Operation.BORROW;
+                }
+            }
+
+            Operation operation = picked;
+            execute(operation, borrowId).whenComplete((status, e) -> {
+                long done = System.nanoTime();
+                int code = e == null ? status : failed(operation, e);
+                // 按发出时间计入：压测结束时仍在途的请求等到完成后计入，慢请求不会被丢掉
+                if (now >= measureFrom) {
+                    stats.get(operation).record(done - now, code);
+                }
+                long think = thinkTime();
+                if (think > 0) {
+                    CompletableFuture.delayedExecutor(think, TimeUnit.MILLISECONDS, executor).execute(this::next);
+                } else {
+                    executor.execute(this::next);
+                }
+            });
+        }
+
+        private CompletableFuture<Integer> execute(Operation operation, Long borrowId) {
+            return switch (operation) {
+                case BOOKS -> send(HttpRequest.newBuilder(uri("/api/books?current=" + (1 + random.nextInt(50))
+                        + "&pageSize=10")).GET()).thenApply(HttpResponse::statusCode);
+                case BORROW -> borrow();
+                case RETURN -> giveBack(borrowId);
+                case STOCK -> addStock();
+            };
+        }
+
+        private CompletableFuture<Integer> borrow() {
+            long bookId = books.next(random);
+            long userId = 1 + (long) (random.nextDouble() * options.getUsers());
+            return send(json(uri("/api/borrows"))
+                    .POST(body("{\"book\":{\"id\":" + bookId + "},\"user\":{\"id\":" + userId + "}}")))
+                    .thenApply(response -> {
+                        if (response.statusCode() == 200) {
+                            openBorrows.add(readId(response.body()));
+                            borrowed.increment();
+                        }
+                        return response.statusCode();
+                    });
+        }
+
+        private CompletableFuture<Integer> giveBack(Long borrowId) {
+            return send(HttpRequest.newBuilder(uri("/api/borrows/back/" + borrowId))
+                    .PUT(HttpRequest.BodyPublishers.noBody()))
+                    .thenApply(response -> {
+                        if (response.statusCode() == 200) {
+                            returned.increment();
+                        }
+                        return response.statusCode();
+                    });
+        }
+
+        private CompletableFuture<Integer> addStock() {
+            long bookId = books.next(random);
+            int quantity = 1 + random.nextInt(5);
+            return send(json(uri("/api/books/" + bookId + "/stock"))
+                    .POST(body("{\"book\":{\"id\":" + bookId + "},\"admin\":{\"id\":" + adminId
+                            + "},\"stockQuantity\":" + quantity + ",\"remarks\":\"压测入库\"}")))
+                    .thenApply(response -> {
+                        if (response.statusCode() == 200) {
+                            stocked.add(quantity);
+                        }
+                        return response.statusCode();
+                    });
+        }
+
+        // 指数分布，均值为 think-time
+        private long thinkTime() {
+            if (options.getThinkTime() <= 0) {
+                return 0;
+            }
+            return (long) (-Math.log(1 - random.nextDouble()) * options.getThinkTime());
+        }
+    }
+
+    private int failed(Operation operation, Throwable e) {
+        transportErrors.increment();
+        log.debug("{} failed", operation.getEndpoint(), e);
+        return 0;
+    }
+
+    private long readId(String body) {
+        try {
+            return objectMapper.readTree(body).get("id").asLong();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private CompletableFuture<HttpResponse<String>> send(HttpRequest.Builder request) {
+        return client.sendAsync(request.timeout(REQUEST_TIMEOUT).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create(baseUrl + path);
+    }
+
+    private static HttpRequest.Builder json(URI uri) {
+        return HttpRequest.newBuilder(uri).header("Content-Type", "application/json");
+    }
+
+    private static HttpRequest.BodyPublisher body(String json) {
+        return HttpRequest.BodyPublishers.ofString(json);
+    }
+
+    public Map<Operation, OperationStats> getStats() {
+        return stats;
+    }
+
+    public long getBorrowed() {
+        return borrowed.sum();
+    }
+
+    public long getReturned() {
+        return returned.sum();
+    }
+
+    public long getStocked() {
+        return stocked.sum();
+    }
+
+    public long getTransportErrors() {
+        return transportErrors.sum();
+    }
+}
@@ -0,0 +1,132 @@
+package com.bookadmin.loadtest;
+
+import com.bookadmin.BookAdminBackendApplication;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.Banner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.File;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 压测入口：在本进程内以随机端口启动后端（内存 H2，seed 配置文件按规模灌入数据），
+ * 通过 HTTP 闭环压测后输出吞吐量、延迟分位数和错误率，并核对库存账目；账目不一致时以退出码 1 结束。
+ */
+@Slf4j
+public final class LoadTestMain {
+
+    private LoadTestMain() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestOptions options = LoadTestOptions.parse(args);
+        int exitCode;
+        try (ConfigurableApplicationContext context = start(options)) {
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+            JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+
+            Long adminId = jdbcTemplate.queryForObject(
+                    "SELECT MIN(id) FROM users WHERE role = 'ADMIN'", Long.class);
+            if (adminId == null) {
+                throw new IllegalStateException("No admin user in the seeded data");
+            }
+            List<Long> openBorrowIds = jdbcTemplate.queryForList(
+                    "SELECT id FROM borrows WHERE status = 'ON'", Long.class);
+            StockLedger before = StockLedger.snapshot(jdbcTemplate);
+            LoadGenerator generator = new LoadGenerator(options, port, adminId, openBorrowIds);
+            generator.run();
+            StockLedger after = StockLedger.snapshot(jdbcTemplate);
+
+            List<String> problems = after.verify(before, generator, generator.getTransportErrors() > 0);
+            report(options, generator, problems);
+            exitCode = problems.isEmpty() ? 0 : 1;
+        }
+        System.exit(exitCode);
+    }
+
+    private static ConfigurableApplicationContext start(LoadTestOptions options) {
+        SpringApplication application = new SpringApplication(BookAdminBackendApplication.class);
+        application.setBannerMode(Banner.Mode.OFF);
+        return application.run(
+                "--server.port=0",
+                "--spring.threads.virtual.enabled=" + options.isVirtualThreads(),
+                "--app.borrow.group-commit.enabled=" + options.isGroupCommit(),
+                // Tomcat 默认最多 8192 个连接，上万并发客户端时放开
+                "--server.tomcat.max-connections=" + Math.max(8192, options.getConcurrency() + 1000),
+                "--spring.profiles.active=seed",
+                "--seed.books=" + options.getBooks(),
+                "--seed.users=" + options.getUsers(),
+                "--seed.borrows=" + options.getBorrows(),
+                "--seed.popularity-skew=" + options.getSkew(),
+                "--spring.jpa.show-sql=false",
+                "--spring.jpa.properties.hibernate.format_sql=false",
+                "--logging.level.com.bookadmin=info",
+                "--logging.level.org.springframework.web=warn",
+                "--app.sql-stats.debug-header=false");
+    }
+
+    private static void report(LoadTestOptions options, LoadGenerator generator, List<String> problems)
+            throws Exception {
+        OperationStats all = new OperationStats();
+        Map<String, Object> operations = new LinkedHashMap<>();
+        StringBuilder table = new StringBuilder(String.format("%n%-30s %10s %10s %9s %9s %9s %9s %9s%n",
+                "operation", "requests", "req/s", "errors", "p50 ms", "p99 ms", "p999 ms", "max ms"));
+        for (Map.Entry<Operation, OperationStats> entry : generator.getStats().entrySet()) {
+            OperationStats stats = entry.getValue();
+            if (stats.getCount() == 0) {
+                continue;
+            }
+            all.add(stats);
+            table.append(row(entry.getKey().getEndpoint(), stats, options.getDuration()));
+            operations.put(entry.getKey().getKey(), summary(stats, options.getDuration()));
+        }
+        table.append(row("total", all, options.getDuration()));
+        log.info("Load test finished{}", table);
+
+        if (problems.isEmpty()) {
+            log.info("Stock ledger consistent: borrowed {}, returned {}, stocked {}",
+                    generator.getBorrowed(), generator.getReturned(), generator.getStocked());
+        } else {
+            problems.forEach(problem -> log.error("Stock ledger mismatch: {}", problem));
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("options", options);
+        result.put("total", summary(all, options.getDuration()));
+        result.put("operations", operations);
+        result.put("ledgerProblems", problems);
+        File output = new File(options.getOutput());
+        if (output.getParentFile() != null) {
+            output.getParentFile().mkdirs();
+        }
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(output, result);
+        log.info("Result written to {}", output.getAbsolutePath());
+    }
+
+    private static String row(String name, OperationStats stats, int duration) {
+        return String.format("%-30s %10d %10.1f %8.2f%% %9.2f %9.2f %9.2f %9.2f%n",
+                name, stats.getCount(), (double) stats.getCount() / duration, stats.getErrorRate() * 100,
+                stats.percentile(50), stats.percentile(99), stats.percentile(99.9), stats.getMax());
+    }
+
+    private static Map<String, Object> summary(OperationStats stats, int duration) {
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("requests", stats.getCount());
+        summary.put("throughput", (double) stats.getCount() / duration);
+        summary.put("errorRate", stats.getErrorRate());
+        summary.put("statuses", stats.getStatuses());
+        summary.put("meanMs", stats.getMean());
+        summary.put("p50Ms", stats.percentile(50));
+        summary.put("p99Ms", stats.percentile(99));
+        summary.put("p999Ms", stats.percentile(99.9));
+        summary.put("maxMs", stats.getMax());
+        return summary;
+    }
+}
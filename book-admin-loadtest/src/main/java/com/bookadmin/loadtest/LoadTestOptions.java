@@ -0,0 +1,72 @@
+package com.bookadmin.loadtest;
+
+import lombok.Data;
+
+/**
+ * 压测参数，命令行写法为 name=value（也可以写成 --name=value），未给出的使用默认值。
+ */
+@Data
+public class LoadTestOptions {
+
+    // 灌入的数据规模（seed 配置文件）
+    private long books = 20_000;
+    private long users = 2_000;
+    private long borrows = 200_000;
+
+    // 并发客户端数，每个客户端发完一个请求、思考一段时间后再发下一个（闭环）
+    private int concurrency = 16;
+    // 预热秒数，期间的请求不计入结果
+    private int warmup = 10;
+    private int duration = 30;
+    // 平均思考时间（毫秒），按指数分布随机，0 表示不等待
+    private long thinkTime = 0;
+    // 各操作的权重
+    private String mix = "books:60,borrow:20,return:15,stock:5";
+    // 借阅、入库挑选图书的 Zipf 指数，与测试数据的借阅热度一致
+    private double skew = 1.1;
+    private String output = "target/loadtest-result.json";
+    // 服务端使用虚拟线程处理请求（需要 Java 21，见 -Pjava21）
+    private boolean virtualThreads = false;
+    // 服务端借阅/归还走组提交队列
+    private boolean groupCommit = false;
+
+    public static LoadTestOptions parse(String[] args) {
+        LoadTestOptions options = new LoadTestOptions();
+        for (String arg : args) {
+            // exec:exec 把 loadtest.args 作为一个参数传入，这里按空白拆开
+            for (String part : arg.trim().split("\\s+")) {
+                if (!part.isEmpty()) {
+                    options.set(part);
+                }
+            }
+        }
+        return options;
+    }
+
+    private void set(String arg) {
+        if (arg.startsWith("--")) {
+            arg = arg.substring(2);
+        }
+        int eq = arg.indexOf('=');
+        if (eq < 0) {
+            throw new IllegalArgumentException("Expected name=value: " + arg);
+        }
+        String name = arg.substring(0, eq);
+        String value = arg.substring(eq + 1);
+        switch (name) {
+            case "books" -> books = Long.parseLong(value);
+            case "users" -> users = Long.parseLong(value);
+            case "borrows" -> borrows = Long.parseLong(value);
+            case "concurrency" -> concurrency = Integer.parseInt(value);
+            case "warmup" -> warmup = Integer.parseInt(value);
+            case "duration" -> duration = Integer.parseInt(value);
+            case "think-time" -> thinkTime = Long.parseLong(value);
+            case "mix" -> mix = value;
+            case "skew" -> skew = Double.parseDouble(value);
+            case "output" -> output = value;
+            case "virtual-threads" -> virtualThreads = Boolean.parseBoolean(value);
+            case "group-commit" -> groupCommit = Boolean.parseBoolean(value);
+            default -> throw new IllegalArgumentException("Unknown option: " + name);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.bookadmin.loadtest;
+
+/**
+ * 压测中的操作，key 为 --mix 参数中的名称。
+ */
+public enum Operation {
+    BOOKS("books", "GET /api/books"),
+    BORROW("borrow", "POST /api/borrows"),
+    RETURN("return", "PUT /api/borrows/back/{id}"),
+    STOCK("stock", "POST /api/books/{id}/stock");
+
+    private final String key;
+    private final String endpoint;
+
+    Operation(String key, String endpoint) {
+        this.key = key;
+        this.endpoint = endpoint;
+    }
+
+    public String getKey() {
+        return key;
+    }
+
+    public String getEndpoint() {
+        return endpoint;
+    }
+
+    public static Operation from(String key) {
+        for (Operation operation : values()) {
+            if (operation.key.equalsIgnoreCase(key.trim())) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + key);
+    }
+}
@@ -0,0 +1,55 @@
+package com.bookadmin.loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * 按权重随机挑选操作，如 books:60,borrow:20,return:15,stock:5。
+ */
+public class OperationMix {
+
+    private final Map<Operation, Integer> weights = new EnumMap<>(Operation.class);
+    private final Operation[] operations;
+    private final int[] cumulative;
+
+    public OperationMix(String mix) {
+        for (String entry : mix.split(",")) {
+            String[] parts = entry.split(":");
+            if (parts.length != 2) {
+                throw new IllegalArgumentException("Expected operation:weight in mix: " + entry);
+            }
+            int weight = Integer.parseInt(parts[1].trim());
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weight must not be negative: " + entry);
+            }
+            weights.merge(Operation.from(parts[0]), weight, Integer::sum);
+        }
+        weights.values().removeIf(weight -> weight == 0);
+        if (weights.isEmpty()) {
+            throw new IllegalArgumentException("Mix has no operations: " + mix);
+        }
+
+        operations = weights.keySet().toArray(new Operation[0]);
+        cumulative = new int[operations.length];
+        int total = 0;
+        for (int i = 0; i < operations.length; i++) {
+            total += weights.get(operations[i]);
+            cumulative[i] = total;
+        }
+    }
+
+    public Operation next(Random random) {
+        int value = random.nextInt(cumulative[cumulative.length - 1]);
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    public Map<Operation, Integer> getWeights() {
+        return weights;
+    }
+}
@@ -0,0 +1,66 @@
+package com.bookadmin.loadtest;
+
+import org.HdrHistogram.ConcurrentHistogram;
+import org.HdrHistogram.Histogram;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个操作的延迟直方图（微秒）和按响应码统计的次数，状态码 0 表示连接或读取失败。
+ */
+public class OperationStats {
+
+    // 最长记录 60 秒，3 位有效数字
+    private final Histogram latency = new ConcurrentHistogram(60_000_000L, 3);
+    private final Map<Integer, LongAdder> statuses = new ConcurrentHashMap<>();
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long nanos, int status) {
+        latency.recordValue(Math.min(Math.max(nanos / 1000, 1), latency.getHighestTrackableValue()));
+        statuses.computeIfAbsent(status, key -> new LongAdder()).increment();
+        if (status < 200 || status >= 300) {
+            errors.increment();
+        }
+    }
+
+    public long getCount() {
+        return latency.getTotalCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double getErrorRate() {
+        return getCount() == 0 ? 0 : (double) getErrors() / getCount();
+    }
+
+    // 百分位延迟（毫秒）
+    public double percentile(double percentile) {
+        return latency.getValueAtPercentile(percentile) / 1000.0;
+    }
+
+    public double getMean() {
+        return latency.getMean() / 1000.0;
+    }
+
+    public double getMax() {
+        return latency.getMaxValue() / 1000.0;
+    }
+
+    public Map<Integer, Long> getStatuses() {
+        Map<Integer, Long> result = new TreeMap<>();
+        statuses.forEach((status, count) -> result.put(status, count.sum()));
+        return result;
+    }
+
+    public void add(OperationStats other) {
+        latency.add(other.latency);
+        other.statuses.forEach((status, count) ->
+                statuses.computeIfAbsent(status, key -> new LongAdder()).add(count.sum()));
+        errors.add(other.errors.sum());
+    }
+}
@@ -0,0 +1,101 @@
+package com.bookadmin.loadtest;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 库存账目快照。每本书的 库存 + 未归还借阅 - 入库总量 在任何操作前后都不变：
+ * 借阅库存减一、未归还加一，归还相反，入库时库存和入库总量同时增加。
+ * 分片库存的图书按各分片之和计算。压测前后各取一次，逐本比较。
+ */
+public class StockLedger {
+
+    private final Map<Long, Long> stock = new HashMap<>();
+    private final Map<Long, Long> onLoan = new HashMap<>();
+    private final Map<Long, Long> stocked = new HashMap<>();
+    private final List<String> negative = new ArrayList<>();
+
+    private StockLedger() {
+    }
+
+    public static StockLedger snapshot(JdbcTemplate jdbcTemplate) {
+        StockLedger ledger = new StockLedger();
+        jdbcTemplate.query("SELECT id, stock FROM books", row -> {
+            ledger.stock.put(row.getLong(1), row.getLong(2));
+            if (row.getLong(2) < 0) {
+                ledger.negative.add("book " + row.getLong(1) + " stock " + row.getLong(2));
+            }
+        });
+        jdbcTemplate.query("SELECT book_id, slot, stock FROM book_stock_slots", row -> {
+            ledger.stock.merge(row.getLong(1), row.getLong(3), Long::sum);
+            if (row.getLong(3) < 0) {
+                ledger.negative.add("book " + row.getLong(1) + " slot " + row.getInt(2) + " stock " + row.getLong(3));
+            }
+        });
+        jdbcTemplate.query("SELECT book_id, COUNT(*) FROM borrows WHERE status = 'ON' GROUP BY book_id",
+                row -> {
+                    ledger.onLoan.put(row.getLong(1), row.getLong(2));
+                });
+        jdbcTemplate.query("SELECT book_id, SUM(stock_quantity) FROM stock_records GROUP BY book_id",
+                row -> {
+                    ledger.stocked.put(row.getLong(1), row.getLong(2));
+                });
+        return ledger;
+    }
+
+    public long getTotalStock() {
+        return sum(stock);
+    }
+
+    public long getTotalOnLoan() {
+        return sum(onLoan);
+    }
+
+    public long getTotalStocked() {
+        return sum(stocked);
+    }
+
+    private long balance(Long bookId) {
+        return stock.getOrDefault(bookId, 0L) + onLoan.getOrDefault(bookId, 0L) - stocked.getOrDefault(bookId, 0L);
+    }
+
+    /**
+     * 与压测前的快照比较，返回发现的问题（最多列出 20 条），为空表示一致。
+     * 客户端记录的成功次数只在没有网络错误时参与核对：超时的请求可能已经在服务端生效。
+     */
+    public List<String> verify(StockLedger before, LoadGenerator generator, boolean transportErrors) {
+        List<String> problems = new ArrayList<>(negative);
+        for (Long bookId : stock.keySet()) {
+            long expected = before.balance(bookId);
+            long actual = balance(bookId);
+            if (expected != actual) {
+                problems.add("book " + bookId + ": stock + on loan - stocked changed from " + expected + " to " + actual);
+            }
+        }
+
+        long loanDelta = getTotalOnLoan() - before.getTotalOnLoan();
+        long stockedDelta = getTotalStocked() - before.getTotalStocked();
+        long stockDelta = getTotalStock() - before.getTotalStock();
+        if (stockDelta != stockedDelta - loanDelta) {
+            problems.add("total stock changed by " + stockDelta + ", history says " + (stockedDelta - loanDelta));
+        }
+        if (!transportErrors) {
+            if (loanDelta != generator.getBorrowed() - generator.getReturned()) {
+                problems.add("on loan changed by " + loanDelta + ", clients borrowed " + generator.getBorrowed()
+                        + " and returned " + generator.getReturned());
+            }
+            if (stockedDelta != generator.getStocked()) {
+                problems.add("stock records grew by " + stockedDelta + ", clients stocked " + generator.getStocked());
+            }
+        }
+        return problems.size() > 20 ? new ArrayList<>(problems.subList(0, 20)) : problems;
+    }
+
+    private static long sum(Map<Long, Long> values) {
+        return values.values().stream().mapToLong(Long::longValue).sum();
+    }
+}